@@ -1,11 +1,14 @@
 package project3;
 
-import java.util.HashMap;
 /*
  * This class represents an arc object
+ * Its annotations are kept by its graph in an AttributeStore under the arc's int ID,
+ * and its weight is kept in the graph's ArcWeights column
  * 
  * The methods can:
  * set and get both target and source 
+ * get the int ID given by its graph
+ * set and get its weight as a String, kept on the arc itself until it is put in a graph
  * 
  * Author:  Benjamin Chi
  * Class:  ICS 311/Algorithms
@@ -13,10 +16,25 @@ import java.util.HashMap;
 
 public class Arc{
 	
-	private String weight = null;
 	private Vertex source = null;
 	private Vertex target = null;
-	public HashMap <Object, Object> annotation = new HashMap <Object, Object>();
+	private int id = -1;
+	
+	//The weight of an arc that isn't in a graph yet
+	private String weight = null;
+	
+	//The weight column of the graph the arc is in
+	private ArcWeights weights = null;
+	
+	//The arc's positions in its graph's arc list, its source's out list, and its target's in list
+	int listIndex = -1;
+	int outIndex = -1;
+	int inIndex = -1;
+	
+	//The next newer and older arcs between the same source and target, so its graph's arc index
+	//can move to another one in constant time when this arc is removed
+	Arc newerParallel = null;
+	Arc olderParallel = null;
 	
 	//Empty constructor
 	public Arc(){
@@ -49,13 +67,36 @@ public class Arc{
 		target = newtarget;
 	}
 	
-	//Get the weight for the arc
+	//Get the weight for the arc as a String.  An arc that isn't in a graph keeps its own weight
 	public String getWeight(){
-		return weight;
+		if(weights == null)
+			return weight;
+		
+		return weights.getString(id);
 	}
 	
-	//Set the weight for the arc
+	//Set the weight for the arc from a String
 	public void setWeight(String data){
-		weight = data;
+		if(weights == null)
+			weight = data;
+		
+		else
+			weights.setString(id, data);
+	}
+	
+	//Get the int ID the graph gave this arc, or -1 if it isn't in a graph
+	public int getId(){
+		return id;
+	}
+	
+	//Set the int ID and the weight column when the arc is put in a graph, moving its own weight into the column
+	void setId(int newid, ArcWeights newweights){
+		id = newid;
+		weights = newweights;
+		
+		if(weights != null && weight != null){
+			weights.setString(id, weight);
+			weight = null;
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package project3;
+import java.util.Arrays;
+
+/*
+ * This class maps a pair of vertex IDs to the ID of the arc between them.
+ * The pair is packed into one long (source ID in the high 32 bits, target ID in the low 32 bits)
+ * and kept in an open addressing table with linear probing, so a lookup is a few reads of
+ * two primitive arrays and never makes an object.
+ * The table doubles once it is more than half full.  A removed entry is filled in by shifting
+ * later entries of its run back, so there are no deleted markers to skip over.
+ *
+ * The methods can:
+ * put, get, and remove the arc ID of a (source, target) pair
+ * check whether a pair has an arc
+ * provide the number of pairs in the table
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class ArcIndex {
+
+	//Vertex IDs are never negative, so a key of -1 marks an empty slot
+	private static final long EMPTY = -1L;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size = 0;
+
+	public ArcIndex(){
+		this(16);
+	}
+
+	//Makes the table big enough for expected pairs without growing
+	public ArcIndex(int expected){
+		int capacity = 16;
+
+		while(capacity < expected * 2L && capacity < (1 << 30))
+			capacity <<= 1;
+
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/*
+	 * Packs a pair of vertex IDs into one key
+	 */
+	static long key(int source, int target){
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	/*
+	 * Spreads the bits of a key so pairs with close IDs don't land in the same run
+	 */
+	private static int slot(long key, int mask){
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+
+		return (int) key & mask;
+	}
+
+	/*
+	 * Returns the number of pairs in the table
+	 */
+	public int size(){
+		return size;
+	}
+
+	/*
+	 * Returns the arc ID of the pair, or -1 if it has no arc
+	 */
+	public int get(int source, int target){
+		long key = key(source, target);
+
+		for(int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask){
+			if(keys[i] == key)
+				return values[i];
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Returns true if the pair has an arc
+	 */
+	public boolean contains(int source, int target){
+		return get(source, target) != -1;
+	}
+
+	/*
+	 * Sets the arc ID of the pair.  Returns the arc ID it replaced, or -1 if the pair was new
+	 */
+	public int put(int source, int target, int arcId){
+		long key = key(source, target);
+		int i = slot(key, mask);
+
+		for(; keys[i] != EMPTY; i = (i + 1) & mask){
+			if(keys[i] == key){
+				int old = values[i];
+				values[i] = arcId;
+
+				return old;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = arcId;
+		size++;
+
+		if(size * 2 > keys.length)
+			grow();
+
+		return -1;
+	}
+
+	/*
+	 * Removes the pair.  Returns its arc ID, or -1 if it wasn't in the table
+	 */
+	public int remove(int source, int target){
+		long key = key(source, target);
+		int i = slot(key, mask);
+
+		while(keys[i] != key){
+			if(keys[i] == EMPTY)
+				return -1;
+
+			i = (i + 1) & mask;
+		}
+
+		int old = values[i];
+		size--;
+
+		//Move back any later entry of the run that can't be found past the hole
+		int hole = i;
+
+		for(int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask){
+			int home = slot(keys[j], mask);
+
+			//The entry can fill the hole if its home slot is not between the hole and it
+			if(((j - home) & mask) >= ((j - hole) & mask)){
+				keys[hole] = keys[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+		}
+
+		keys[hole] = EMPTY;
+
+		return old;
+	}
+
+	/*
+	 * Doubles the table and puts every pair back in
+	 */
+	private void grow(){
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		mask = keys.length - 1;
+		Arrays.fill(keys, EMPTY);
+
+		for(int j = 0; j < oldKeys.length; j++){
+			if(oldKeys[j] != EMPTY){
+				int i = slot(oldKeys[j], mask);
+
+				while(keys[i] != EMPTY)
+					i = (i + 1) & mask;
+
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+}
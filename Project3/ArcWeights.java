@@ -0,0 +1,161 @@
+package project3;
+import java.util.Arrays;
+
+/*
+ * This class stores the weights of a graph's arcs in one primitive array indexed by arc ID.
+ * The type of the array (int, float, or double) is picked when the graph is made, so a graph
+ * loaded from whole number ties holds a plain int[] and no arc keeps a String of its weight.
+ * An arc whose weight was never set has a weight of 0.
+ *
+ * The methods can:
+ * set and get a weight as an int or a double
+ * set and get a weight as a String, for the older String weight methods
+ * provide the type of the weights
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class ArcWeights {
+
+	//The weight types
+	public static final int INT = 0;
+	public static final int FLOAT = 1;
+	public static final int DOUBLE = 2;
+
+	private final int type;
+
+	//Only the array of the picked type is used
+	private int[] intValues = new int[0];
+	private float[] floatValues = new float[0];
+	private double[] doubleValues = new double[0];
+
+	public ArcWeights(int type){
+		if(type != INT && type != FLOAT && type != DOUBLE)
+			throw new IllegalArgumentException("Unknown weight type: " + type);
+
+		this.type = type;
+	}
+
+	//Uses an int array that was already filled in, such as the weights in a GraphBuilder, without copying it
+	ArcWeights(int[] values){
+		type = INT;
+		intValues = values;
+	}
+
+	//Uses a double array that was already filled in without copying it
+	ArcWeights(double[] values){
+		type = DOUBLE;
+		doubleValues = values;
+	}
+
+	/*
+	 * Returns the type of the weights, INT, FLOAT, or DOUBLE
+	 */
+	public int getType(){
+		return type;
+	}
+
+	/*
+	 * Returns the weight of an arc as a double
+	 */
+	public double get(int id){
+		if(type == INT)
+			return id < intValues.length ? intValues[id] : 0;
+
+		if(type == FLOAT)
+			return id < floatValues.length ? floatValues[id] : 0;
+
+		return id < doubleValues.length ? doubleValues[id] : 0;
+	}
+
+	/*
+	 * Returns the weight of an arc as an int.  A float or double weight is truncated
+	 */
+	public int getInt(int id){
+		if(type == INT)
+			return id < intValues.length ? intValues[id] : 0;
+
+		return (int) get(id);
+	}
+
+	/*
+	 * Sets the weight of an arc.  An int column truncates the weight
+	 */
+	public void set(int id, double weight){
+		ensureCapacity(id + 1);
+
+		if(type == INT)
+			intValues[id] = (int) weight;
+
+		else if(type == FLOAT)
+			floatValues[id] = (float) weight;
+
+		else
+			doubleValues[id] = weight;
+	}
+
+	/*
+	 * Sets the weight of an arc from an int
+	 */
+	public void set(int id, int weight){
+		ensureCapacity(id + 1);
+
+		if(type == INT)
+			intValues[id] = weight;
+
+		else if(type == FLOAT)
+			floatValues[id] = weight;
+
+		else
+			doubleValues[id] = weight;
+	}
+
+	/*
+	 * Returns the weight of an arc written out the way its type prints
+	 */
+	public String getString(int id){
+		if(type == INT)
+			return String.valueOf(getInt(id));
+
+		if(type == FLOAT)
+			return String.valueOf((float) get(id));
+
+		return String.valueOf(get(id));
+	}
+
+	/*
+	 * Sets the weight of an arc from a String.  For int weights a number with a "." is truncated,
+	 * the same way the VNA files are read, and a null weight is 0
+	 */
+	public void setString(int id, String weight){
+		if(weight == null)
+			set(id, 0);
+
+		else if(type == INT && !weight.contains("."))
+			set(id, Integer.parseInt(weight.trim()));
+
+		else
+			set(id, Double.parseDouble(weight));
+	}
+
+	/*
+	 * Makes room for the weights of size arc IDs
+	 */
+	void ensureCapacity(int size){
+		int capacity = type == INT ? intValues.length : type == FLOAT ? floatValues.length : doubleValues.length;
+
+		if(size <= capacity)
+			return;
+
+		capacity = Math.max(size, Math.max(16, capacity * 2));
+
+		if(type == INT)
+			intValues = Arrays.copyOf(intValues, capacity);
+
+		else if(type == FLOAT)
+			floatValues = Arrays.copyOf(floatValues, capacity);
+
+		else
+			doubleValues = Arrays.copyOf(doubleValues, capacity);
+	}
+}
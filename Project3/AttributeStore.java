@@ -0,0 +1,398 @@
+package project3;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * This class stores the annotations of a graph's vertices or arcs by column instead of by object.
+ * Each named column is one array indexed by vertex or arc ID, so a million annotated vertices
+ * are one int[] (or long[], double[], Object[]) instead of a million hash map entries.
+ * A column also keeps one bit per ID for whether that ID has a value, so a missing value
+ * can be told apart from 0 the way a hash map key can be.
+ *
+ * setAnnotation and getAnnotation on the graphs go through set and get, which pick a column type
+ * from the first value put in a column: Integer, Long, and Double values go in primitive columns
+ * and anything else goes in an Object column.  If a value of another type is put in a primitive column later,
+ * the column is turned into an Object column.
+ *
+ * The methods can:
+ * make or find typed columns by name
+ * set, get, and remove the value of an ID in a column, as an object
+ * remove a column, or remove every value of an ID
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class AttributeStore {
+
+	//The columns by name
+	private final HashMap <Object, Column> columns = new HashMap <Object, Column>();
+
+	/*
+	 * Returns the int column with a name, making it if there is no column with that name
+	 */
+	public IntColumn intColumn(Object name){
+		Column column = columns.get(name);
+
+		if(column == null){
+			column = new IntColumn();
+			columns.put(name, column);
+		}
+
+		return (IntColumn) column;
+	}
+
+	/*
+	 * Returns the long column with a name, making it if there is no column with that name
+	 */
+	public LongColumn longColumn(Object name){
+		Column column = columns.get(name);
+
+		if(column == null){
+			column = new LongColumn();
+			columns.put(name, column);
+		}
+
+		return (LongColumn) column;
+	}
+
+	/*
+	 * Returns the double column with a name, making it if there is no column with that name
+	 */
+	public DoubleColumn doubleColumn(Object name){
+		Column column = columns.get(name);
+
+		if(column == null){
+			column = new DoubleColumn();
+			columns.put(name, column);
+		}
+
+		return (DoubleColumn) column;
+	}
+
+	/*
+	 * Returns the Object column with a name, making it if there is no column with that name
+	 */
+	public ObjectColumn objectColumn(Object name){
+		Column column = columns.get(name);
+
+		if(column == null){
+			column = new ObjectColumn();
+			columns.put(name, column);
+		}
+
+		return (ObjectColumn) column;
+	}
+
+	/*
+	 * Returns the column with a name, or null if there is none
+	 */
+	public Column getColumn(Object name){
+		return columns.get(name);
+	}
+
+	/*
+	 * Removes a column and every value in it
+	 */
+	public void removeColumn(Object name){
+		columns.remove(name);
+	}
+
+	/*
+	 * Sets the value of an ID in a column.  A new column gets its type from the value
+	 */
+	public void set(int id, Object name, Object value){
+		Column column = columns.get(name);
+
+		if(column == null){
+			if(value instanceof Integer)
+				column = new IntColumn();
+
+			else if(value instanceof Long)
+				column = new LongColumn();
+
+			else if(value instanceof Double)
+				column = new DoubleColumn();
+
+			else
+				column = new ObjectColumn();
+
+			columns.put(name, column);
+		}
+
+		//A value the column can't hold turns it into an Object column
+		else if(!column.fits(value)){
+			column = column.toObjectColumn();
+			columns.put(name, column);
+		}
+
+		column.setObject(id, value);
+	}
+
+	/*
+	 * Returns the value of an ID in a column, or null if it has none
+	 */
+	public Object get(int id, Object name){
+		Column column = columns.get(name);
+
+		if(column == null || !column.contains(id))
+			return null;
+
+		return column.getObject(id);
+	}
+
+	/*
+	 * Returns true if an ID has a value in a column
+	 */
+	public boolean contains(int id, Object name){
+		Column column = columns.get(name);
+
+		return column != null && column.contains(id);
+	}
+
+	/*
+	 * Removes the value of an ID from a column and returns it, or null if it had none
+	 */
+	public Object remove(int id, Object name){
+		Column column = columns.get(name);
+
+		if(column == null)
+			return null;
+
+		return column.remove(id);
+	}
+
+	/*
+	 * Removes the values of an ID from every column, for when its vertex or arc is removed
+	 */
+	public void removeAll(int id){
+		for(Column column : columns.values())
+			column.remove(id);
+	}
+
+	/*
+	 * A column of values indexed by ID, with a bit for each ID that has a value
+	 */
+	public static abstract class Column {
+		private long[] present = new long[0];
+
+		//Returns true if an ID has a value
+		public boolean contains(int id){
+			int word = id >>> 6;
+
+			return word < present.length && (present[word] & (1L << id)) != 0;
+		}
+
+		//Removes the value of an ID and returns it, or null if it had none
+		public Object remove(int id){
+			if(!contains(id))
+				return null;
+
+			Object value = getObject(id);
+			present[id >>> 6] &= ~(1L << id);
+			clear(id);
+
+			return value;
+		}
+
+		//Marks an ID as having a value, and makes room for it in the column
+		protected void mark(int id){
+			if(id >= capacity())
+				grow(Math.max(id + 1, capacity() * 2));
+
+			if((id >>> 6) >= present.length)
+				present = Arrays.copyOf(present, Math.max((id >>> 6) + 1, present.length * 2));
+
+			present[id >>> 6] |= 1L << id;
+		}
+
+		//Makes an Object column with the same values
+		ObjectColumn toObjectColumn(){
+			ObjectColumn column = new ObjectColumn();
+
+			for(int id = 0; id < present.length * 64; id++){
+				if(contains(id))
+					column.set(id, getObject(id));
+			}
+
+			return column;
+		}
+
+		//The number of IDs the column has room for
+		abstract int capacity();
+
+		//Makes room for size IDs
+		abstract void grow(int size);
+
+		//Lets go of the value of a removed ID
+		abstract void clear(int id);
+
+		//Returns true if the column can hold a value
+		abstract boolean fits(Object value);
+
+		//The value of an ID as an object
+		abstract Object getObject(int id);
+
+		//Sets the value of an ID from an object
+		abstract void setObject(int id, Object value);
+	}
+
+	/*
+	 * A column of int values.  A missing value reads as 0
+	 */
+	public static class IntColumn extends Column {
+		private int[] values = new int[0];
+
+		public int get(int id){
+			return id < values.length ? values[id] : 0;
+		}
+
+		public void set(int id, int value){
+			mark(id);
+			values[id] = value;
+		}
+
+		int capacity(){
+			return values.length;
+		}
+
+		void grow(int size){
+			values = Arrays.copyOf(values, size);
+		}
+
+		void clear(int id){
+			values[id] = 0;
+		}
+
+		boolean fits(Object value){
+			return value instanceof Integer;
+		}
+
+		Object getObject(int id){
+			return values[id];
+		}
+
+		void setObject(int id, Object value){
+			set(id, (Integer) value);
+		}
+	}
+
+	/*
+	 * A column of long values.  A missing value reads as 0
+	 */
+	public static class LongColumn extends Column {
+		private long[] values = new long[0];
+
+		public long get(int id){
+			return id < values.length ? values[id] : 0;
+		}
+
+		public void set(int id, long value){
+			mark(id);
+			values[id] = value;
+		}
+
+		int capacity(){
+			return values.length;
+		}
+
+		void grow(int size){
+			values = Arrays.copyOf(values, size);
+		}
+
+		void clear(int id){
+			values[id] = 0;
+		}
+
+		boolean fits(Object value){
+			return value instanceof Long;
+		}
+
+		Object getObject(int id){
+			return values[id];
+		}
+
+		void setObject(int id, Object value){
+			set(id, (Long) value);
+		}
+	}
+
+	/*
+	 * A column of double values.  A missing value reads as 0
+	 */
+	public static class DoubleColumn extends Column {
+		private double[] values = new double[0];
+
+		public double get(int id){
+			return id < values.length ? values[id] : 0;
+		}
+
+		public void set(int id, double value){
+			mark(id);
+			values[id] = value;
+		}
+
+		int capacity(){
+			return values.length;
+		}
+
+		void grow(int size){
+			values = Arrays.copyOf(values, size);
+		}
+
+		void clear(int id){
+			values[id] = 0;
+		}
+
+		boolean fits(Object value){
+			return value instanceof Double;
+		}
+
+		Object getObject(int id){
+			return values[id];
+		}
+
+		void setObject(int id, Object value){
+			set(id, (Double) value);
+		}
+	}
+
+	/*
+	 * A column of any objects.  A missing value reads as null
+	 */
+	public static class ObjectColumn extends Column {
+		private Object[] values = new Object[0];
+
+		public Object get(int id){
+			return id < values.length ? values[id] : null;
+		}
+
+		public void set(int id, Object value){
+			mark(id);
+			values[id] = value;
+		}
+
+		int capacity(){
+			return values.length;
+		}
+
+		void grow(int size){
+			values = Arrays.copyOf(values, size);
+		}
+
+		void clear(int id){
+			values[id] = null;
+		}
+
+		boolean fits(Object value){
+			return true;
+		}
+
+		Object getObject(int id){
+			return values[id];
+		}
+
+		void setObject(int id, Object value){
+			set(id, value);
+		}
+	}
+}
@@ -0,0 +1,768 @@
+package project3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/*
+ * This class represents a Directed Graph that many threads can read and change at the same time.
+ * Unlike DirectedGraph, which sits on Hashtables that all take one lock per call, the vertices are
+ * split into stripes by int ID and each stripe has its own read/write lock.
+ * A vertex's out arcs, in arcs, and the index of its out arcs are guarded by its stripe's lock,
+ * so readers of different vertices never wait on each other, and readers of the same stripe share its read lock.
+ *
+ * insertArc and removeArc take the write locks of the source's and target's stripes (lower stripe first,
+ * so two writers can't wait on each other) and change both lists and the index before letting go,
+ * so no reader ever sees an arc in one list and not the other.
+ * Each arc keeps its position in its source's out list and target's in list, so removing it swaps
+ * the last arc of each list into its place, the same as DirectedGraph.
+ *
+ * Vertices are only added under one lock, since that happens far less often than adding arcs.
+ * A removed vertex is marked under its stripe's lock first, so no arc can be added to it while its arcs are removed.
+ * The weights are kept in fixed size chunks that never move once they are made, so a weight is read and written
+ * in its own slot without a lock, and growing the column can't lose a write.  Arc.getWeight and Arc.setWeight
+ * use the same column, so every way of reaching a weight follows the same rule
+ *
+ * The methods can:
+ * insert and remove vertices and arcs from any number of threads
+ * check for an arc and loop over the adjacent vertices of a vertex ID while other threads write
+ * provide the amount of arcs and vertices, and in and out degrees
+ * set and get arc weights
+ * freeze a consistent copy of the graph into a CSR view
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class ConcurrentDirectedGraph {
+
+	//The arcs and state of one vertex, guarded by the lock of its stripe
+	private static class Adjacency {
+		final Vertex vertex;
+		Arc[] out = new Arc[2];
+		Arc[] in = new Arc[2];
+		int outSize = 0;
+		int inSize = 0;
+		volatile boolean removed = false;
+
+		Adjacency(Vertex vertex){
+			this.vertex = vertex;
+		}
+	}
+
+	//The stripe locks, and the index of the out arcs of each stripe's vertices.
+	//An index entry holds the position of the arc in its source's out list
+	private final ReentrantReadWriteLock[] locks;
+	private final ArcIndex[] indexes;
+	private final int stripeMask;
+
+	//The vertices by key and by int ID.  The array is only replaced while vertexLock is held
+	private final ConcurrentHashMap <String, Vertex> vertices = new ConcurrentHashMap <String, Vertex>();
+	private volatile Adjacency[] adjacency = new Adjacency[16];
+	private final Object vertexLock = new Object();
+	private volatile int nextVertexId = 0;
+
+	private final AtomicInteger nextArcId = new AtomicInteger();
+	private final AtomicInteger arcCount = new AtomicInteger();
+
+	//The arc weights, indexed by arc ID in chunks that are never copied
+	private final ArcWeights arcWeights;
+
+	//Creates a graph with int weights and 4 stripes for every processor
+	public ConcurrentDirectedGraph(){
+		this(ArcWeights.INT, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	//Creates a graph with weights of type ArcWeights.INT, FLOAT, or DOUBLE, and at least the given number of stripes
+	public ConcurrentDirectedGraph(int weightType, int stripes){
+		int count = 1;
+
+		while(count < stripes && count < (1 << 16))
+			count <<= 1;
+
+		locks = new ReentrantReadWriteLock[count];
+		indexes = new ArcIndex[count];
+		stripeMask = count - 1;
+
+		for(int i = 0; i < count; i++){
+			locks[i] = new ReentrantReadWriteLock();
+			indexes[i] = new ArcIndex();
+		}
+
+		arcWeights = new ChunkedWeights(weightType);
+	}
+
+	/*
+	 * An ArcWeights column kept in chunks of CHUNK_SIZE weights.  Only the small array of chunks is copied
+	 * when a chunk is added, under a lock, and the chunks themselves stay where they are, so a weight
+	 * written to a chunk is never lost to a copy.  Reads and writes of one weight don't take any lock
+	 */
+	private static class ChunkedWeights extends ArcWeights {
+		private static final int CHUNK_BITS = 12;
+		private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+		private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+		//int[], float[], or double[] chunks by the weight type.  A new array is put out each time a chunk is added
+		private volatile Object[] chunks = new Object[0];
+
+		ChunkedWeights(int type){
+			super(type);
+		}
+
+		//Returns the chunk the weight of arc id is in, or null if it hasn't been made
+		private Object chunk(int id){
+			Object[] current = chunks;
+			int c = id >>> CHUNK_BITS;
+
+			return c < current.length ? current[c] : null;
+		}
+
+		//Returns the chunk the weight of arc id is in, making it and every chunk before it first if needed
+		private Object makeChunk(int id){
+			Object chunk = chunk(id);
+
+			if(chunk != null)
+				return chunk;
+
+			synchronized(this){
+				Object[] current = chunks;
+				int c = id >>> CHUNK_BITS;
+
+				if(c < current.length)
+					return current[c];
+
+				Object[] grown = Arrays.copyOf(current, c + 1);
+
+				for(int i = current.length; i <= c; i++){
+					if(getType() == INT)
+						grown[i] = new int[CHUNK_SIZE];
+
+					else if(getType() == FLOAT)
+						grown[i] = new float[CHUNK_SIZE];
+
+					else
+						grown[i] = new double[CHUNK_SIZE];
+				}
+
+				chunks = grown;
+
+				return grown[c];
+			}
+		}
+
+		//The weight of an arc as a double, 0 if its chunk hasn't been made
+		public double get(int id){
+			Object chunk = chunk(id);
+
+			if(chunk == null)
+				return 0;
+
+			if(getType() == INT)
+				return ((int[]) chunk)[id & CHUNK_MASK];
+
+			if(getType() == FLOAT)
+				return ((float[]) chunk)[id & CHUNK_MASK];
+
+			return ((double[]) chunk)[id & CHUNK_MASK];
+		}
+
+		//The weight of an arc as an int
+		public int getInt(int id){
+			Object chunk = chunk(id);
+
+			if(chunk == null)
+				return 0;
+
+			if(getType() == INT)
+				return ((int[]) chunk)[id & CHUNK_MASK];
+
+			return (int) get(id);
+		}
+
+		//Writes a weight straight into its slot
+		public void set(int id, double weight){
+			Object chunk = makeChunk(id);
+
+			if(getType() == INT)
+				((int[]) chunk)[id & CHUNK_MASK] = (int) weight;
+
+			else if(getType() == FLOAT)
+				((float[]) chunk)[id & CHUNK_MASK] = (float) weight;
+
+			else
+				((double[]) chunk)[id & CHUNK_MASK] = weight;
+		}
+
+		//Writes an int weight straight into its slot
+		public void set(int id, int weight){
+			if(getType() == INT)
+				((int[]) makeChunk(id))[id & CHUNK_MASK] = weight;
+
+			else
+				set(id, (double) weight);
+		}
+
+		//Makes the chunks for size arc IDs
+		void ensureCapacity(int size){
+			if(size > 0)
+				makeChunk(size - 1);
+		}
+	}
+
+	/*
+	 * Returns the stripe of the vertex with ID v
+	 */
+	private int stripe(int v){
+		return v & stripeMask;
+	}
+
+	/*
+	 * Returns the total number of vertices in the graph
+	 */
+	public int numVertices(){
+		return vertices.size();
+	}
+
+	/*
+	 * Returns the total number of arcs in the graph
+	 */
+	public int numArcs(){
+		return arcCount.get();
+	}
+
+	/*
+	 * Returns one more than the largest vertex ID given out, which is the size an array indexed by vertex ID needs
+	 */
+	public int vertexIdBound(){
+		return nextVertexId;
+	}
+
+	/*
+	 * Returns the vertex that matches to a particular key
+	 */
+	public Vertex getVertex(String key){
+		return vertices.get(key);
+	}
+
+	/*
+	 * Returns the vertex with a particular int ID, or null if it was removed
+	 */
+	public Vertex getVertex(int id){
+		Adjacency adj = adjacency[id];
+
+		return adj == null || adj.removed ? null : adj.vertex;
+	}
+
+	/*
+	 * Returns the vertex with the key, inserting it first if there isn't one.
+	 * Two threads inserting the same key get the same vertex
+	 */
+	public Vertex insertVertex(String key){
+		Vertex vertex = vertices.get(key);
+
+		if(vertex != null)
+			return vertex;
+
+		synchronized(vertexLock){
+			vertex = vertices.get(key);
+
+			if(vertex != null)
+				return vertex;
+
+			vertex = new Vertex(key);
+			vertex.setId(nextVertexId);
+
+			Adjacency[] current = adjacency;
+
+			if(vertex.getId() == current.length)
+				current = Arrays.copyOf(current, current.length * 2);
+
+			current[vertex.getId()] = new Adjacency(vertex);
+			adjacency = current;
+
+			//The ID is only given out once its slot is filled in
+			nextVertexId++;
+			vertices.put(key, vertex);
+		}
+
+		return vertex;
+	}
+
+	/*
+	 * Takes the write locks of the stripes of two vertices, lower stripe first
+	 */
+	private void lockPair(int v, int w){
+		int a = Math.min(stripe(v), stripe(w));
+		int b = Math.max(stripe(v), stripe(w));
+
+		locks[a].writeLock().lock();
+
+		if(b != a)
+			locks[b].writeLock().lock();
+	}
+
+	/*
+	 * Lets go of the write locks taken by lockPair
+	 */
+	private void unlockPair(int v, int w){
+		int a = Math.min(stripe(v), stripe(w));
+		int b = Math.max(stripe(v), stripe(w));
+
+		if(b != a)
+			locks[b].writeLock().unlock();
+
+		locks[a].writeLock().unlock();
+	}
+
+	/*
+	 * Creates a new arc and adds it to both adjacency lists and the index in one step.
+	 * Like DirectedGraph, a later arc between the same vertices takes the place of the earlier one in the index.
+	 * Returns null if either vertex has been removed
+	 */
+	public Arc insertArc(Vertex source, Vertex target){
+		int s = source.getId();
+		int t = target.getId();
+		Adjacency sourceAdj = adjacency[s];
+		Adjacency targetAdj = adjacency[t];
+
+		lockPair(s, t);
+
+		try{
+			if(sourceAdj.removed || targetAdj.removed)
+				return null;
+
+			Arc arc = new Arc(source, target);
+			arc.setId(nextArcId.getAndIncrement(), arcWeights);
+
+			if(sourceAdj.outSize == sourceAdj.out.length)
+				sourceAdj.out = Arrays.copyOf(sourceAdj.out, sourceAdj.outSize * 2);
+
+			arc.outIndex = sourceAdj.outSize;
+			sourceAdj.out[sourceAdj.outSize++] = arc;
+
+			if(targetAdj.inSize == targetAdj.in.length)
+				targetAdj.in = Arrays.copyOf(targetAdj.in, targetAdj.inSize * 2);
+
+			arc.inIndex = targetAdj.inSize;
+			targetAdj.in[targetAdj.inSize++] = arc;
+
+			//Link the arc to the earlier arc between the same vertices it takes the place of in the index.
+			//Every arc out of s is guarded by the lock of s's stripe, so the links are too
+			int old = indexes[stripe(s)].put(s, t, arc.outIndex);
+
+			if(old >= 0){
+				arc.olderParallel = sourceAdj.out[old];
+				sourceAdj.out[old].newerParallel = arc;
+			}
+
+			arcCount.incrementAndGet();
+
+			return arc;
+		}
+
+		finally{
+			unlockPair(s, t);
+		}
+	}
+
+	/*
+	 * Inserts the arc from the vertex with key sourceKey to the vertex with key targetKey,
+	 * inserting either vertex first if it isn't in the graph, and sets its weight
+	 */
+	public Arc insertArc(String sourceKey, String targetKey, int weight){
+		Arc arc = insertArc(insertVertex(sourceKey), insertVertex(targetKey));
+
+		if(arc != null)
+			setWeight(arc, weight);
+
+		return arc;
+	}
+
+	/*
+	 * Removes the arc from both adjacency lists and the index in one step, moving the last arc of each list
+	 * into its place.  Returns the arc's weight as a String, or null if the arc isn't in the graph
+	 */
+	public Object removeArc(Arc a){
+		int s = a.getSource().getId();
+		int t = a.getTarget().getId();
+		Adjacency sourceAdj = adjacency[s];
+		Adjacency targetAdj = adjacency[t];
+
+		lockPair(s, t);
+
+		try{
+			//The arc's out list position tells whether it is still in the graph
+			if(a.outIndex < 0 || a.outIndex >= sourceAdj.outSize || sourceAdj.out[a.outIndex] != a)
+				return null;
+
+			ArcIndex index = indexes[stripe(s)];
+
+			//The index holds the newest arc between the vertices.  If that is this arc, the next
+			//older parallel arc takes its place, and the entry is only removed if there is none
+			if(a.newerParallel == null){
+				if(a.olderParallel != null)
+					index.put(s, t, a.olderParallel.outIndex);
+
+				else
+					index.remove(s, t);
+			}
+
+			else
+				a.newerParallel.olderParallel = a.olderParallel;
+
+			if(a.olderParallel != null)
+				a.olderParallel.newerParallel = a.newerParallel;
+
+			a.newerParallel = null;
+			a.olderParallel = null;
+
+			//Move the last out arc into the hole, and move its index entry with it if it has one
+			Arc last = sourceAdj.out[--sourceAdj.outSize];
+			sourceAdj.out[sourceAdj.outSize] = null;
+
+			if(last != a){
+				int lastTarget = last.getTarget().getId();
+
+				if(index.get(s, lastTarget) == last.outIndex)
+					index.put(s, lastTarget, a.outIndex);
+
+				sourceAdj.out[a.outIndex] = last;
+				last.outIndex = a.outIndex;
+			}
+
+			//Move the last in arc into the hole
+			last = targetAdj.in[--targetAdj.inSize];
+			targetAdj.in[targetAdj.inSize] = null;
+
+			if(last != a){
+				targetAdj.in[a.inIndex] = last;
+				last.inIndex = a.inIndex;
+			}
+
+			a.outIndex = -1;
+			a.inIndex = -1;
+			arcCount.decrementAndGet();
+		}
+
+		finally{
+			unlockPair(s, t);
+		}
+
+		return getWeightString(a);
+	}
+
+	/*
+	 * Removes the vertex along with every arc into or out of it.  The vertex is marked first,
+	 * so no other thread can add an arc to it while its arcs are being removed
+	 */
+	public String removeVertex(Vertex v){
+		int id = v.getId();
+		Adjacency adj = adjacency[id];
+		ReentrantReadWriteLock lock = locks[stripe(id)];
+
+		lock.writeLock().lock();
+
+		try{
+			if(adj.removed)
+				return null;
+
+			adj.removed = true;
+			vertices.remove(v.getKey(), v);
+		}
+
+		finally{
+			lock.writeLock().unlock();
+		}
+
+		//Each arc is removed with both of its stripes locked, taking the last arc of a list each time
+		while(true){
+			Arc next = null;
+			lock.readLock().lock();
+
+			try{
+				if(adj.outSize > 0)
+					next = adj.out[adj.outSize - 1];
+
+				else if(adj.inSize > 0)
+					next = adj.in[adj.inSize - 1];
+			}
+
+			finally{
+				lock.readLock().unlock();
+			}
+
+			if(next == null)
+				break;
+
+			removeArc(next);
+		}
+
+		return v.getData();
+	}
+
+	/*
+	 * Returns the arc from source to target, or null if there is none
+	 */
+	public Arc getArc(Vertex source, Vertex target){
+		int s = source.getId();
+		int t = target.getId();
+		Adjacency adj = adjacency[s];
+		ReentrantReadWriteLock lock = locks[stripe(s)];
+
+		lock.readLock().lock();
+
+		try{
+			int pos = indexes[stripe(s)].get(s, t);
+
+			return pos == -1 ? null : adj.out[pos];
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns true if there is an arc from the vertex with ID source to the vertex with ID target
+	 */
+	public boolean hasArc(int source, int target){
+		ReentrantReadWriteLock lock = locks[stripe(source)];
+
+		lock.readLock().lock();
+
+		try{
+			return indexes[stripe(source)].contains(source, target);
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns the number of arcs outgoing from the vertex with ID v
+	 */
+	public int outDegree(int v){
+		ReentrantReadWriteLock lock = locks[stripe(v)];
+
+		lock.readLock().lock();
+
+		try{
+			return adjacency[v].outSize;
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns the number of arcs incoming to the vertex with ID v
+	 */
+	public int inDegree(int v){
+		ReentrantReadWriteLock lock = locks[stripe(v)];
+
+		lock.readLock().lock();
+
+		try{
+			return adjacency[v].inSize;
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Gives the ID of every out adjacent vertex of the vertex with ID v to action.
+	 * The stripe is read locked while the list is read, so action should not change the graph
+	 */
+	public void forEachOutNeighbor(int v, IntConsumer action){
+		Adjacency adj = adjacency[v];
+		ReentrantReadWriteLock lock = locks[stripe(v)];
+
+		lock.readLock().lock();
+
+		try{
+			for(int i = 0; i < adj.outSize; i++)
+				action.accept(adj.out[i].getTarget().getId());
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Gives the ID of every in adjacent vertex of the vertex with ID v to action.
+	 * The stripe is read locked while the list is read, so action should not change the graph
+	 */
+	public void forEachInNeighbor(int v, IntConsumer action){
+		Adjacency adj = adjacency[v];
+		ReentrantReadWriteLock lock = locks[stripe(v)];
+
+		lock.readLock().lock();
+
+		try{
+			for(int i = 0; i < adj.inSize; i++)
+				action.accept(adj.in[i].getSource().getId());
+		}
+
+		finally{
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns a copy of the out adjacent vertices of a vertex, taken under its stripe's read lock
+	 */
+	public java.util.Iterator <Vertex> outAdjacentVertices(Vertex v){
+		final ArrayList <Vertex> outAdjacentList = new ArrayList <Vertex>();
+
+		forEachOutNeighbor(v.getId(), new IntConsumer(){
+			public void accept(int w){
+				outAdjacentList.add(adjacency[w].vertex);
+			}
+		});
+
+		return outAdjacentList.iterator();
+	}
+
+	/*
+	 * Returns a copy of the in adjacent vertices of a vertex, taken under its stripe's read lock
+	 */
+	public java.util.Iterator <Vertex> inAdjacentVertices(Vertex v){
+		final ArrayList <Vertex> inAdjacentList = new ArrayList <Vertex>();
+
+		forEachInNeighbor(v.getId(), new IntConsumer(){
+			public void accept(int w){
+				inAdjacentList.add(adjacency[w].vertex);
+			}
+		});
+
+		return inAdjacentList.iterator();
+	}
+
+	/*
+	 * Returns the weight of an arc as a double
+	 */
+	public double getWeight(Arc a){
+		return arcWeights.get(a.getId());
+	}
+
+	/*
+	 * Returns the weight of an arc as an int
+	 */
+	public int getIntWeight(Arc a){
+		return arcWeights.getInt(a.getId());
+	}
+
+	/*
+	 * Returns the weight of an arc as a String
+	 */
+	private String getWeightString(Arc a){
+		return arcWeights.getString(a.getId());
+	}
+
+	/*
+	 * Sets the weight of an arc
+	 */
+	public void setWeight(Arc a, double weight){
+		arcWeights.set(a.getId(), weight);
+	}
+
+	/*
+	 * Sets the weight of an arc from an int
+	 */
+	public void setWeight(Arc a, int weight){
+		arcWeights.set(a.getId(), weight);
+	}
+
+	/*
+	 * Freezes a consistent copy of the graph into a read-only CSR view.
+	 * Every stripe is read locked, in order, while the lists are copied, so writers wait until it is done
+	 */
+	public CsrGraph toCsr(){
+		for(int i = 0; i < locks.length; i++)
+			locks[i].readLock().lock();
+
+		try{
+			//insertVertex only holds vertexLock, so vertices can still be added.  It puts out the array
+			//before the ID, so reading the ID first means the array read after it has every slot below it
+			int bound = nextVertexId;
+			Adjacency[] current = adjacency;
+			int[] denseIds = new int[bound];
+			ArrayList <Vertex> vertexList = new ArrayList <Vertex>();
+			HashMap <String, Integer> ids = new HashMap <String, Integer>(bound * 2);
+
+			//Give every vertex that hasn't been removed a dense ID.  A removed vertex may still have
+			//arcs that haven't been taken out yet, which are left out of the view
+			for(int v = 0; v < bound; v++){
+				denseIds[v] = -1;
+				
+				if(!current[v].removed){
+					denseIds[v] = vertexList.size();
+					ids.put(current[v].vertex.getKey(), vertexList.size());
+					vertexList.add(current[v].vertex);
+				}
+			}
+
+			int n = vertexList.size();
+			int[] outOffsets = new int[n + 1];
+			int[] inOffsets = new int[n + 1];
+
+			//Count the degrees of each vertex, then turn the counts into offsets
+			for(int i = 0; i < n; i++){
+				Adjacency adj = current[vertexList.get(i).getId()];
+				int outCount = 0;
+				int inCount = 0;
+
+				for(int j = 0; j < adj.outSize; j++){
+					if(denseIds[adj.out[j].getTarget().getId()] != -1)
+						outCount++;
+				}
+
+				for(int j = 0; j < adj.inSize; j++){
+					if(denseIds[adj.in[j].getSource().getId()] != -1)
+						inCount++;
+				}
+
+				outOffsets[i + 1] = outOffsets[i] + outCount;
+				inOffsets[i + 1] = inOffsets[i] + inCount;
+			}
+
+			int[] outTargets = new int[outOffsets[n]];
+			int[] inTargets = new int[inOffsets[n]];
+
+			//Copy the adjacency lists into the flat arrays
+			for(int i = 0; i < n; i++){
+				Adjacency adj = current[vertexList.get(i).getId()];
+				int outPos = outOffsets[i];
+				int inPos = inOffsets[i];
+
+				for(int j = 0; j < adj.outSize; j++){
+					int w = denseIds[adj.out[j].getTarget().getId()];
+
+					if(w != -1)
+						outTargets[outPos++] = w;
+				}
+
+				for(int j = 0; j < adj.inSize; j++){
+					int w = denseIds[adj.in[j].getSource().getId()];
+
+					if(w != -1)
+						inTargets[inPos++] = w;
+				}
+			}
+
+			return new CsrGraph(vertexList.toArray(new Vertex[n]), ids, outOffsets, outTargets, inOffsets, inTargets);
+		}
+
+		finally{
+			for(int i = locks.length - 1; i >= 0; i--)
+				locks[i].readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package project3;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/*
+ * This class times a mixed read/write workload on a ConcurrentDirectedGraph and, for comparison,
+ * on a DirectedGraph that every thread has to lock as a whole.
+ * It reads a .vna file (wiki-Vote.vna unless another file is given) and inserts its vertices.
+ * Then writer threads insert the ties while reader threads keep looping over the out adjacent
+ * vertices of random vertices and checking for random reverse arcs, until the writers are done.
+ * A second round has the writers remove half of the arcs while the readers keep going.
+ * After each round the arc count is checked against a CSR view of the graph.
+ *
+ * Usage:  java project3.ContentionBenchmark [file] [writers] [readers]
+ *
+ * The methods can:
+ * run the same workload on the striped graph and on the single lock graph and print the times and read counts
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class ContentionBenchmark {
+
+	//The ties of the file by vertex index
+	static int n;
+	static int[] sources;
+	static int[] targets;
+	static int[] weights;
+	static String[] keys;
+
+	public static void main(String[] args){
+		String fname = args.length > 0 ? args[0] : "wiki-Vote.vna";
+		int writers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+		try{
+			VnaReader reader = VnaReader.read(fname);
+			n = reader.numVertices();
+			keys = new String[n];
+			sources = new int[reader.numTies()];
+			targets = new int[reader.numTies()];
+			weights = new int[reader.numTies()];
+
+			for(int i = 0; i < n; i++)
+				keys[i] = reader.getKey(i);
+
+			for(int i = 0; i < sources.length; i++){
+				sources[i] = reader.getSource(i);
+				targets[i] = reader.getTarget(i);
+				weights[i] = reader.getWeight(i);
+			}
+
+			System.out.println("Vertices: " + n + "  Arcs: " + sources.length + "  Writers: " + writers + "  Readers: " + readers);
+
+			runStriped(writers, readers);
+			runLocked(writers, readers);
+		}
+
+		//If the file could not be read or parsed
+		catch(IOException e){
+			System.out.println("IOException: " + e.getMessage());
+		}
+	}
+
+	/*
+	 * Runs the workload on a ConcurrentDirectedGraph
+	 */
+	static void runStriped(int writers, int readers){
+		final ConcurrentDirectedGraph graph = new ConcurrentDirectedGraph();
+		final Vertex[] vertexList = new Vertex[n];
+		final Arc[] arcs = new Arc[sources.length];
+
+		for(int i = 0; i < n; i++)
+			vertexList[i] = graph.insertVertex(keys[i]);
+
+		//Writer w inserts every writers'th tie starting at w
+		Workload insert = new Workload(){
+			void write(int w, int writers){
+				for(int i = w; i < sources.length; i += writers){
+					arcs[i] = graph.insertArc(vertexList[sources[i]], vertexList[targets[i]]);
+					graph.setWeight(arcs[i], weights[i]);
+				}
+			}
+
+			long read(Random random){
+				int v = vertexList[random.nextInt(n)].getId();
+				final long[] sum = new long[1];
+
+				graph.forEachOutNeighbor(v, new IntConsumer(){
+					public void accept(int w){
+						sum[0] += w;
+					}
+				});
+
+				//A reverse arc check on a random vertex
+				int w = vertexList[random.nextInt(n)].getId();
+
+				if(graph.hasArc(w, v))
+					sum[0]++;
+
+				return sum[0];
+			}
+		};
+
+		insert.run("Striped insert", writers, readers);
+		System.out.println("  Arcs: " + graph.numArcs() + "  CSR arcs: " + graph.toCsr().numArcs());
+
+		//Writer w removes every other one of its arcs
+		Workload remove = new Workload(){
+			void write(int w, int writers){
+				for(int i = w; i < sources.length; i += 2 * writers)
+					graph.removeArc(arcs[i]);
+			}
+
+			long read(Random random){
+				return insert.read(random);
+			}
+		};
+
+		remove.run("Striped remove", writers, readers);
+		System.out.println("  Arcs: " + graph.numArcs() + "  CSR arcs: " + graph.toCsr().numArcs());
+	}
+
+	/*
+	 * Runs the workload on a DirectedGraph where every call locks the whole graph
+	 */
+	static void runLocked(int writers, int readers){
+		final DirectedGraph graph = new DirectedGraph();
+		final Vertex[] vertexList = new Vertex[n];
+		final Arc[] arcs = new Arc[sources.length];
+
+		for(int i = 0; i < n; i++)
+			vertexList[i] = graph.insertVertex(keys[i]);
+
+		Workload insert = new Workload(){
+			void write(int w, int writers){
+				for(int i = w; i < sources.length; i += writers){
+					synchronized(graph){
+						arcs[i] = graph.insertArc(vertexList[sources[i]], vertexList[targets[i]]);
+						graph.setWeight(arcs[i], weights[i]);
+					}
+				}
+			}
+
+			long read(Random random){
+				int v = vertexList[random.nextInt(n)].getId();
+				final long[] sum = new long[1];
+
+				synchronized(graph){
+					graph.forEachOutNeighbor(v, new IntConsumer(){
+						public void accept(int w){
+							sum[0] += w;
+						}
+					});
+
+					int w = vertexList[random.nextInt(n)].getId();
+
+					if(graph.hasArc(w, v))
+						sum[0]++;
+				}
+
+				return sum[0];
+			}
+		};
+
+		insert.run("Locked insert", writers, readers);
+		System.out.println("  Arcs: " + graph.numArcs() + "  CSR arcs: " + graph.toCsr().numArcs());
+
+		Workload remove = new Workload(){
+			void write(int w, int writers){
+				for(int i = w; i < sources.length; i += 2 * writers){
+					synchronized(graph){
+						graph.removeArc(arcs[i]);
+					}
+				}
+			}
+
+			long read(Random random){
+				return insert.read(random);
+			}
+		};
+
+		remove.run("Locked remove", writers, readers);
+		System.out.println("  Arcs: " + graph.numArcs() + "  CSR arcs: " + graph.toCsr().numArcs());
+	}
+
+	/*
+	 * A round of writer threads and reader threads.  The readers stop once every writer is done
+	 */
+	static abstract class Workload {
+
+		//Does writer w's share of the writes
+		abstract void write(int w, int writers);
+
+		//Does one read and returns something from it so it can't be skipped
+		abstract long read(Random random);
+
+		//Runs the round and prints the time and the number of reads done
+		void run(String name, final int writers, int readers){
+			final AtomicBoolean done = new AtomicBoolean(false);
+			final AtomicLong reads = new AtomicLong();
+			final AtomicLong checksum = new AtomicLong();
+			Thread[] writerThreads = new Thread[writers];
+			Thread[] readerThreads = new Thread[readers];
+
+			for(int r = 0; r < readers; r++){
+				final long seed = 311 + r;
+
+				readerThreads[r] = new Thread(){
+					public void run(){
+						Random random = new Random(seed);
+						long count = 0;
+						long sum = 0;
+
+						while(!done.get()){
+							sum += read(random);
+							count++;
+						}
+
+						reads.addAndGet(count);
+						checksum.addAndGet(sum);
+					}
+				};
+			}
+
+			for(int w = 0; w < writers; w++){
+				final int id = w;
+
+				writerThreads[w] = new Thread(){
+					public void run(){
+						write(id, writers);
+					}
+				};
+			}
+
+			long start = System.nanoTime();
+
+			for(Thread t : readerThreads)
+				t.start();
+
+			for(Thread t : writerThreads)
+				t.start();
+
+			try{
+				for(Thread t : writerThreads)
+					t.join();
+
+				long time = System.nanoTime() - start;
+				done.set(true);
+
+				for(Thread t : readerThreads)
+					t.join();
+
+				System.out.println(name + ": " + (time / 1000000) + " ms, " + reads.get() + " reads ("
+						+ (time == 0 ? 0 : reads.get() * 1000000000L / time) + " per second)");
+			}
+
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
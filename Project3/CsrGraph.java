@@ -0,0 +1,192 @@
+package project3;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * This class represents a read-only compressed sparse row (CSR) view of a Directed Graph,
+ * or of an Undirected Graph where the in arrays are the same as the out arrays.
+ * Every vertex is given a dense int ID from 0 to numVertices() - 1.
+ * The out arcs of vertex v are the targets outTargets[outOffsets[v]] up to outTargets[outOffsets[v + 1] - 1]
+ * The in arcs of vertex v are the sources inTargets[inOffsets[v]] up to inTargets[inOffsets[v + 1] - 1]
+ * Each range is sorted so arcs can be found with a binary search
+ * The vertex keys are stored in an array indexed by ID and a hash map from key to ID
+ *
+ * The methods can:
+ * translate between vertex keys, Vertex objects, and int IDs
+ * provide the amount of arcs, vertices, in degrees, and out degrees
+ * check whether an arc exists between two IDs
+ * build the undirected view of a directed view
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class CsrGraph {
+
+	//The ID to key/Vertex dictionary and the key to ID dictionary
+	private final String[] keys;
+	private final Vertex[] vertexList;
+	private final HashMap <String, Integer> ids;
+
+	//The out and in arcs stored as offsets into a flat target array
+	final int[] outOffsets;
+	final int[] outTargets;
+	final int[] inOffsets;
+	final int[] inTargets;
+
+	//Only the graph classes build a CSR view
+	CsrGraph(Vertex[] vertexList, HashMap <String, Integer> ids, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inTargets){
+		this.vertexList = vertexList;
+		this.ids = ids;
+		this.outOffsets = outOffsets;
+		this.outTargets = outTargets;
+		this.inOffsets = inOffsets;
+		this.inTargets = inTargets;
+
+		keys = new String[vertexList.length];
+
+		for(int i = 0; i < vertexList.length; i++)
+			keys[i] = vertexList[i].getKey();
+
+		//Sort each adjacency range so arcs can be binary searched
+		for(int i = 0; i < vertexList.length; i++){
+			Arrays.sort(outTargets, outOffsets[i], outOffsets[i + 1]);
+			Arrays.sort(inTargets, inOffsets[i], inOffsets[i + 1]);
+		}
+	}
+
+	/*
+	 * Returns the total number of vertices in the graph
+	 */
+	public int numVertices(){
+		return keys.length;
+	}
+
+	/*
+	 * Returns the total number of arcs in the graph
+	 */
+	public int numArcs(){
+		return outTargets.length;
+	}
+
+	/*
+	 * Returns the ID of the vertex with a particular key or -1 if there is none
+	 */
+	public int getId(String key){
+		Integer id = ids.get(key);
+
+		if(id == null)
+			return -1;
+
+		return id;
+	}
+
+	/*
+	 * Returns the key of the vertex with a particular ID
+	 */
+	public String getKey(int id){
+		return keys[id];
+	}
+
+	/*
+	 * Returns the Vertex object the ID was made from
+	 */
+	public Vertex getVertex(int id){
+		return vertexList[id];
+	}
+
+	/*
+	 * Returns the number of arcs outgoing from a vertex
+	 */
+	public int outDegree(int v){
+		return outOffsets[v + 1] - outOffsets[v];
+	}
+
+	/*
+	 * Returns the number of arcs incoming to a vertex
+	 */
+	public int inDegree(int v){
+		return inOffsets[v + 1] - inOffsets[v];
+	}
+
+	/*
+	 * Returns the ith out adjacent vertex of v
+	 */
+	public int outNeighbor(int v, int i){
+		return outTargets[outOffsets[v] + i];
+	}
+
+	/*
+	 * Returns the ith in adjacent vertex of v
+	 */
+	public int inNeighbor(int v, int i){
+		return inTargets[inOffsets[v] + i];
+	}
+
+	/*
+	 * Returns true if there is an arc from source to target
+	 */
+	public boolean hasArc(int source, int target){
+		return Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target) >= 0;
+	}
+
+	/*
+	 * Builds the undirected view of a directed view, the same graph UndirectedGraph.fromDirected makes.
+	 * Each vertex's range is the merge of its sorted out and in ranges without repeats, and a loop
+	 * is in its vertex's range twice.  The in arrays are the same as the out arrays
+	 */
+	public CsrGraph toUndirected(){
+		int n = numVertices();
+		int[] offsets = new int[n + 1];
+
+		//Count each merged range, then copy them into place
+		for(int v = 0; v < n; v++)
+			offsets[v + 1] = offsets[v] + merge(v, null, 0);
+
+		int[] targets = new int[offsets[n]];
+
+		for(int v = 0; v < n; v++)
+			merge(v, targets, offsets[v]);
+
+		return new CsrGraph(vertexList, ids, offsets, targets, offsets, targets);
+	}
+
+	/*
+	 * Merges the out and in ranges of v into targets starting at pos, or only counts them if targets is null.
+	 * Returns the size of the merged range
+	 */
+	private int merge(int v, int[] targets, int pos){
+		int out = outOffsets[v];
+		int outEnd = outOffsets[v + 1];
+		int in = inOffsets[v];
+		int inEnd = inOffsets[v + 1];
+		int last = -1;
+		int count = 0;
+
+		while(out < outEnd || in < inEnd){
+			int w;
+
+			if(in == inEnd || (out < outEnd && outTargets[out] <= inTargets[in]))
+				w = outTargets[out++];
+
+			else
+				w = inTargets[in++];
+
+			if(w == last)
+				continue;
+
+			last = w;
+
+			//A loop counts twice, the same as an undirected insertArc
+			int copies = w == v ? 2 : 1;
+
+			for(int i = 0; i < copies; i++){
+				if(targets != null)
+					targets[pos + count] = w;
+
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
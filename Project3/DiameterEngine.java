@@ -0,0 +1,266 @@
+package project3;
+import java.util.Arrays;
+
+/*
+ * This class finds the exact diameter of a CsrGraph, the biggest distance between a reachable pair,
+ * without a BFS from every vertex.  It keeps a lower bound on the diameter and an upper bound
+ * on the eccentricity (the farthest distance it can reach) of every vertex, and stops once no
+ * vertex can have an eccentricity above the lower bound.
+ *
+ * The upper bounds come from 2 facts:
+ * a vertex can't reach farther than 1 more than the farthest of its out adjacent vertices, and
+ * a vertex v in the same strongly connected component as u can't reach farther than d(v, u) + ecc(u).
+ * Each round runs a BFS from the vertex with the biggest upper bound, which gives its exact eccentricity
+ * and raises the lower bound, and then a BFS backwards over the in arcs of its component, which gives d(v, u).
+ * Any bound that drops is passed back to the in adjacent vertices through a work queue.
+ * The first round starts from the vertex in the most arcs, in the way of a double sweep from a central vertex.
+ *
+ * The methods can:
+ * find the diameter
+ * provide the diameter and the number of BFS runs it took
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class DiameterEngine {
+
+	//The upper bound of a vertex that nothing is known about yet
+	private static final int UNKNOWN = Integer.MAX_VALUE / 2;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The component number of each vertex
+	private int[] components;
+
+	//The upper bound on the eccentricity of each vertex.  A vertex that has been a source has its exact eccentricity
+	private int[] upper;
+
+	//The work queue of vertices whose bound should be checked again
+	private int[] queue;
+	private boolean[] queued;
+	private int head = 0;
+	private int size = 0;
+
+	//The BFS arrays, with -1 marking an unvisited vertex
+	private int[] distance;
+	private int[] order;
+
+	//The results of the last search
+	private int diameter = 0;
+	private int bfsRuns = 0;
+
+	public DiameterEngine(CsrGraph csr, int threads){
+		this.csr = csr;
+		this.threads = threads;
+	}
+
+	/*
+	 * Finds the diameter by narrowing the bounds until they meet
+	 */
+	public void run(){
+		int n = csr.numVertices();
+
+		components = new SccEngine(csr, threads).components();
+		upper = new int[n];
+		queue = new int[n];
+		queued = new boolean[n];
+		distance = new int[n];
+		order = new int[n];
+		head = 0;
+		size = 0;
+		diameter = 0;
+		bfsRuns = 0;
+
+		Arrays.fill(distance, -1);
+		Arrays.fill(upper, UNKNOWN);
+
+		//Every bound starts out from the bounds of the out adjacent vertices
+		for(int v = 0; v < n; v++)
+			push(v);
+
+		relax();
+
+		//The vertex in the most arcs is the first source
+		int source = -1;
+		long best = -1;
+
+		for(int v = 0; v < n; v++){
+			long arcs = (long) csr.inDegree(v) * csr.outDegree(v);
+
+			if(arcs > best){
+				best = arcs;
+				source = v;
+			}
+		}
+
+		while(source != -1){
+			int ecc = forward(source);
+
+			if(ecc > diameter)
+				diameter = ecc;
+
+			lower(source, ecc);
+			backward(source, ecc);
+			relax();
+
+			//The next source is the vertex with the biggest bound above the diameter found so far.
+			//A vertex that has been a source can't be picked again since its bound is below the diameter
+			source = -1;
+			int most = diameter;
+
+			for(int v = 0; v < n; v++){
+				if(upper[v] > most){
+					most = upper[v];
+					source = v;
+				}
+			}
+		}
+
+		components = null;
+		upper = null;
+		queue = null;
+		queued = null;
+		distance = null;
+		order = null;
+	}
+
+	/*
+	 * Does a BFS over the out arcs from s and returns the farthest distance it reached
+	 */
+	private int forward(int s){
+		int tail = 0;
+		int farthest = 0;
+
+		distance[s] = 0;
+		order[tail++] = s;
+
+		for(int q = 0; q < tail; q++){
+			int currV = order[q];
+
+			for(int i = csr.outOffsets[currV]; i < csr.outOffsets[currV + 1]; i++){
+				int adjV = csr.outTargets[i];
+
+				if(distance[adjV] == -1){
+					distance[adjV] = distance[currV] + 1;
+					farthest = distance[adjV];
+					order[tail++] = adjV;
+				}
+			}
+		}
+
+		reset(tail);
+		bfsRuns++;
+
+		return farthest;
+	}
+
+	/*
+	 * Does a BFS over the in arcs from u inside its component, and bounds every vertex it reaches by d(v, u) + ecc(u)
+	 */
+	private void backward(int u, int ecc){
+		int tail = 0;
+
+		distance[u] = 0;
+		order[tail++] = u;
+
+		for(int q = 0; q < tail; q++){
+			int currV = order[q];
+
+			for(int i = csr.inOffsets[currV]; i < csr.inOffsets[currV + 1]; i++){
+				int adjV = csr.inTargets[i];
+
+				if(distance[adjV] == -1 && components[adjV] == components[u]){
+					distance[adjV] = distance[currV] + 1;
+					order[tail++] = adjV;
+
+					//d(v, u) is a distance too, so it can raise the lower bound
+					if(distance[adjV] > diameter)
+						diameter = distance[adjV];
+
+					lower(adjV, distance[adjV] + ecc);
+				}
+			}
+		}
+
+		reset(tail);
+
+		//A component of one vertex didn't need the search
+		if(tail > 1)
+			bfsRuns++;
+	}
+
+	/*
+	 * Marks the BFS vertices as unvisited again
+	 */
+	private void reset(int tail){
+		for(int i = 0; i < tail; i++)
+			distance[order[i]] = -1;
+	}
+
+	/*
+	 * Lowers the bound of a vertex, and queues its in adjacent vertices if it dropped
+	 */
+	private void lower(int v, int bound){
+		if(bound < upper[v]){
+			upper[v] = bound;
+
+			for(int i = csr.inOffsets[v]; i < csr.inOffsets[v + 1]; i++)
+				push(csr.inTargets[i]);
+		}
+	}
+
+	/*
+	 * Adds a vertex to the work queue if it isn't on it already
+	 */
+	private void push(int v){
+		if(!queued[v]){
+			queued[v] = true;
+			queue[(head + size) % queue.length] = v;
+			size++;
+		}
+	}
+
+	/*
+	 * Checks every queued vertex against 1 more than the biggest bound of its out adjacent vertices
+	 */
+	private void relax(){
+		while(size > 0){
+			int v = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			queued[v] = false;
+
+			int most = 0;
+
+			//A loop can't make a vertex reach any farther
+			for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1] && most < UNKNOWN; i++){
+				int adjV = csr.outTargets[i];
+
+				if(adjV != v)
+					most = Math.max(most, upper[adjV] + 1);
+			}
+
+			if(most < upper[v]){
+				upper[v] = most;
+
+				for(int i = csr.inOffsets[v]; i < csr.inOffsets[v + 1]; i++)
+					push(csr.inTargets[i]);
+			}
+		}
+	}
+
+	/*
+	 * Returns the diameter found by the last search
+	 */
+	public int getDiameter(){
+		return diameter;
+	}
+
+	/*
+	 * Returns the number of BFS runs the last search took
+	 */
+	public int getBfsRuns(){
+		return bfsRuns;
+	}
+}
@@ -1,23 +1,32 @@
 package project3;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.function.IntConsumer;
 
 /*
  * This class represents a Directed Graph.  It uses 5 main structures.
  * The vertices are stored in a hashtable with the key as String (vertex ID) and a value of a Vertex
- * The adjacenct vertices are stored in two hashtables, one for in one for out (since it's directed),
- * with the key as String (vertex ID) and value of an ArrayList of Vertex IDs
- * The pairs of vertices for each arc are stored in a hashtable with the key as a source vertex 
- * and the value as a hashtable with a key as a target vertex and a value of their shared Arc
+ * The adjacenct vertices are stored in two arrays indexed by the vertex's int ID, one for in one for out (since it's directed),
+ * each holding an ArrayList of the Arcs going out of or into the vertex.  The int IDs of the adjacent vertices are
+ * kept in the same order by a VersionedAdjacency, so reading the i'th adjacent vertex is a few array reads
+ * The pairs of vertices for each arc are stored in an ArcIndex, which maps the int IDs of a source
+ * and target vertex to the ID of their shared Arc without making any objects
  * The arcs themselves are stored in an ArrayList
+ * Each arc remembers its position in the arc list and in its source's out list and target's in list,
+ * so removing it swaps the last entry of each list into its place instead of searching the lists
  * 
  * The methods can:
  * provide iterators for arcs, vertices, in adjacent vertices, and out adjacent vertices.
+ * loop over the adjacent vertices of a vertex ID by index or with a callback, without making a list
  * provide the amount of arcs, vertices, in degrees, and out degrees
  * add, remove, view, or adjust data for both vertices and arcs.
  * add, remove, or view vertices and arcs themselves.
- * add, remove, or adjust annotations for both vertices and arcs
+ * check for an arc between two vertex IDs, or get its ID, without making any objects
+ * add, remove, or adjust annotations for both vertices and arcs, which are kept in AttributeStore columns
+ * indexed by the int ID each vertex and arc is given when it is inserted
  * reverse the direction of an arc
+ * freeze the graph into a read-only CSR view (CsrGraph) with dense int vertex IDs
+ * take a read-only snapshot of the vertices and arcs in constant time, while the graph goes on changing
+ * set and get arc weights as numbers, stored in an int, float, or double column picked when the graph is made
  * 
  * Author:  Benjamin Chi
  * Class:  ICS 311/Algorithms
@@ -26,18 +35,85 @@ public class DirectedGraph {
 	
 	//Set attributes for DirectedGraph
 	private Hashtable <String, Vertex> vertices;
-	private Hashtable <String, ArrayList<String>> inAdjacencyList;
-	private Hashtable <String, ArrayList<String>> outAdjacencyList;
-	private Hashtable <Vertex, Hashtable<Vertex, Arc>> arcs;
+	private ArrayList<Arc>[] inAdjacencyList;
+	private ArrayList<Arc>[] outAdjacencyList;
+	private ArcIndex arcIndex;
 	private ArrayList<Arc> arcList;
 	
-	//Constructor for DirectedGraph
+	//The annotation columns, indexed by the int IDs given to each vertex and arc as it is inserted
+	private AttributeStore vertexAttributes;
+	private AttributeStore arcAttributes;
+	private int nextVertexId = 0;
+	private int nextArcId = 0;
+	
+	//The vertices by int ID, so an ID can be turned back into its vertex
+	private Vertex[] vertexById = new Vertex[16];
+	
+	//The arcs by int ID, so an ID from the arc index can be turned back into its arc
+	private Arc[] arcById = new Arc[16];
+	
+	//The arc weights, indexed by arc ID
+	private ArcWeights arcWeights;
+	
+	//The vertices and adjacent vertex IDs in copy-on-write chunks, for snapshots and for reading adjacent vertex IDs
+	private VersionedAdjacency versions = new VersionedAdjacency();
+	
+	//Constructor for DirectedGraph with int weights
 	public DirectedGraph (){
+		this(ArcWeights.INT);
+	}
+	
+	//Constructor for DirectedGraph with weights of type ArcWeights.INT, FLOAT, or DOUBLE
+	public DirectedGraph(int weightType){
 		vertices = new Hashtable<String, Vertex>();
-		inAdjacencyList = new Hashtable <String, ArrayList<String>>();
-		outAdjacencyList = new Hashtable <String, ArrayList<String>>();
-		arcs = new Hashtable <Vertex, Hashtable<Vertex, Arc>>();
+		inAdjacencyList = newLists(16);
+		outAdjacencyList = newLists(16);
+		arcIndex = new ArcIndex();
 		arcList = new ArrayList<Arc>();
+		vertexAttributes = new AttributeStore();
+		arcAttributes = new AttributeStore();
+		arcWeights = new ArcWeights(weightType);
+	}
+	
+	//Constructor for DirectedGraph with every structure made big enough for the given number of vertices and arcs,
+	//so none of them has to grow or rehash while the graph is loaded
+	public DirectedGraph(int weightType, int vertexCapacity, int arcCapacity){
+		int tableCapacity = vertexCapacity * 4 / 3 + 1;
+		
+		vertices = new Hashtable<String, Vertex>(tableCapacity);
+		inAdjacencyList = newLists(Math.max(16, vertexCapacity));
+		outAdjacencyList = newLists(Math.max(16, vertexCapacity));
+		arcIndex = new ArcIndex(arcCapacity);
+		arcList = new ArrayList<Arc>(arcCapacity);
+		vertexAttributes = new AttributeStore();
+		arcAttributes = new AttributeStore();
+		arcWeights = new ArcWeights(weightType);
+		arcWeights.ensureCapacity(arcCapacity);
+		vertexById = new Vertex[Math.max(16, vertexCapacity)];
+		arcById = new Arc[Math.max(16, arcCapacity)];
+		versions = new VersionedAdjacency(vertexCapacity);
+	}
+	
+	/*
+	 * Makes an array of adjacency lists indexed by vertex ID
+	 */
+	@SuppressWarnings("unchecked")
+	private static ArrayList<Arc>[] newLists(int size){
+		return new ArrayList[size];
+	}
+	
+	/*
+	 * Returns the out list of the vertex with ID v, or null if it has no out arcs
+	 */
+	private ArrayList<Arc> outList(int v){
+		return v >= 0 && v < outAdjacencyList.length ? outAdjacencyList[v] : null;
+	}
+	
+	/*
+	 * Returns the in list of the vertex with ID v, or null if it has no in arcs
+	 */
+	private ArrayList<Arc> inList(int v){
+		return v >= 0 && v < inAdjacencyList.length ? inAdjacencyList[v] : null;
 	}
 	
 	/*
@@ -47,6 +123,13 @@ public class DirectedGraph {
 		return vertices.size();
 	}
 	
+	/*
+	 * Returns one more than the largest vertex ID given out, which is the size an array indexed by vertex ID needs
+	 */
+	public int vertexIdBound(){
+		return nextVertexId;
+	}
+	
 	/*
 	 * Returns the total number of arcs in the graph
 	 */
@@ -81,23 +164,30 @@ public class DirectedGraph {
 	 * Returns an arc object that matches a source and target vertex
 	 */
 	public Arc getArc(Vertex source, Vertex target){
+		int id = arcIndex.get(source.getId(), target.getId());
 		
-		//Set variables
-		Arc targetArc = null;
-		Hashtable<Vertex, Arc> targetTable = null;
-		
-		//Get the sub-hashtable that is associated with source
-		targetTable = arcs.get(source);
-		
-		if(targetTable != null){
-			if(targetTable.containsKey(target)){
-				
-				//Get the arc that's associated with the target in the sub-hashtable
-				targetArc = targetTable.get(target);
-			}
-		}
-		
-		return targetArc;
+		return id == -1 ? null : arcById[id];
+	}
+	
+	/*
+	 * Returns the ID of the arc from the vertex with ID source to the vertex with ID target, or -1 if there is none
+	 */
+	public int getArcId(int source, int target){
+		return arcIndex.get(source, target);
+	}
+	
+	/*
+	 * Returns true if there is an arc from the vertex with ID source to the vertex with ID target
+	 */
+	public boolean hasArc(int source, int target){
+		return arcIndex.contains(source, target);
+	}
+	
+	/*
+	 * Returns the arc with a particular int ID, or null if it was removed
+	 */
+	public Arc getArc(int id){
+		return id < arcById.length ? arcById[id] : null;
 	}
 	
 	/*
@@ -120,8 +210,8 @@ public class DirectedGraph {
 	public int inDegree(Vertex v){
 		int in = 0;
 		
-		if(inAdjacencyList.containsKey(v.getKey())){
-			in = inAdjacencyList.get(v.getKey()).size();
+		if(inList(v.getId()) != null){
+			in = inList(v.getId()).size();
 		}
 		
 		return in;
@@ -133,8 +223,8 @@ public class DirectedGraph {
 	public int outDegree(Vertex v){
 		int out = 0;
 		
-		if(outAdjacencyList.containsKey(v.getKey())){
-			out = outAdjacencyList.get(v.getKey()).size();
+		if(outList(v.getId()) != null){
+			out = outList(v.getId()).size();
 		}
 		
 		return out;
@@ -145,10 +235,12 @@ public class DirectedGraph {
 	 */
 	public java.util.Iterator <Vertex> inAdjacentVertices(Vertex v){
 		ArrayList <Vertex> inAdjacentList = new ArrayList <Vertex>();
-		ArrayList <String> inAdjacentKeys = inAdjacencyList.get(v.getKey());
+		ArrayList <Arc> inArcs = inList(v.getId());
 		
-		for(int i = 0; i < inAdjacentKeys.size(); i++){
-			inAdjacentList.add(vertices.get(inAdjacentKeys.get(i)));
+		if(inArcs != null){
+			for(int i = 0; i < inArcs.size(); i++){
+				inAdjacentList.add(inArcs.get(i).getSource());
+			}
 		}
 		
 		return inAdjacentList.iterator();
@@ -160,16 +252,16 @@ public class DirectedGraph {
 	public java.util.Iterator <Vertex> outAdjacentVertices(Vertex v){
 		
 		ArrayList <Vertex> outAdjacentList = new ArrayList <Vertex>();
-		ArrayList <String> outAdjacentKeys;
+		ArrayList <Arc> outArcs;
 		
-		outAdjacentKeys = outAdjacencyList.get(v.getKey());
+		outArcs = outList(v.getId());
 				
-		if(outAdjacentKeys == null)
+		if(outArcs == null)
 			return outAdjacentList.iterator();
 		
 		else{
-			for(int i = 0; i < outAdjacentKeys.size(); i++){
-				outAdjacentList.add(vertices.get(outAdjacentKeys.get(i)));
+			for(int i = 0; i < outArcs.size(); i++){
+				outAdjacentList.add(outArcs.get(i).getTarget());
 			}
 			
 			return outAdjacentList.iterator();
@@ -180,16 +272,11 @@ public class DirectedGraph {
 	 * The total number of incoming arcs on the graph
 	 */
 	public int totalInVertices(){
-		Set<Entry<String, ArrayList<String>>> adjEntry = inAdjacencyList.entrySet(); 
-		Iterator<Entry<String, ArrayList<String>>> adjList = adjEntry.iterator();
-		
-		ArrayList<String> total = null;
 		int totalIn = 0;
 		
-		while(adjList.hasNext()){
-			Entry<String, ArrayList<String>> entry = adjList.next();
-			total = entry.getValue();
-			totalIn += total.size();
+		for(int v = 0; v < nextVertexId; v++){
+			if(inAdjacencyList[v] != null)
+				totalIn += inAdjacencyList[v].size();
 		}
 		
 		return totalIn;
@@ -199,16 +286,11 @@ public class DirectedGraph {
 	 * The total number of outgoing arcs on the graph
 	 */
 	public int totalOutVertices(){
-		Set<Entry<String, ArrayList<String>>> adjEntry = outAdjacencyList.entrySet(); 
-		Iterator<Entry<String, ArrayList<String>>> adjList = adjEntry.iterator();
-		
-		ArrayList<String> total = null;
 		int totalOut = 0;
 		
-		while(adjList.hasNext()){
-			Entry<String, ArrayList<String>> entry = adjList.next();
-			total = entry.getValue();
-			totalOut += total.size();
+		for(int v = 0; v < nextVertexId; v++){
+			if(outAdjacencyList[v] != null)
+				totalOut += outAdjacencyList[v].size();
 		}
 		
 		return totalOut;
@@ -232,13 +314,92 @@ public class DirectedGraph {
 	 * Mutators
 	 */
 	
+	/*
+	 * Returns the vertex with a particular int ID, or null if it was removed
+	 */
+	public Vertex getVertex(int id){
+		return vertexById[id];
+	}
+	
+	/*
+	 * Returns the number of arcs outgoing from the vertex with ID v
+	 */
+	public int outDegree(int v){
+		ArrayList <Arc> outArcs = outAdjacencyList[v];
+		
+		return outArcs == null ? 0 : outArcs.size();
+	}
+	
+	/*
+	 * Returns the number of arcs incoming to the vertex with ID v
+	 */
+	public int inDegree(int v){
+		ArrayList <Arc> inArcs = inAdjacencyList[v];
+		
+		return inArcs == null ? 0 : inArcs.size();
+	}
+	
+	/*
+	 * Returns the ID of the i'th out adjacent vertex of the vertex with ID v, for looping without an iterator.
+	 * The ID is read straight out of the int list of the current version, in the same order as the out arcs
+	 */
+	public int outNeighbor(int v, int i){
+		return versions.outList(v)[i];
+	}
+	
+	/*
+	 * Returns the ID of the i'th in adjacent vertex of the vertex with ID v, for looping without an iterator
+	 */
+	public int inNeighbor(int v, int i){
+		return versions.inList(v)[i];
+	}
+	
+	/*
+	 * Gives the ID of every out adjacent vertex of the vertex with ID v to action, straight from the int list
+	 */
+	public void forEachOutNeighbor(int v, IntConsumer action){
+		int degree = outDegree(v);
+		
+		if(degree > 0){
+			int[] list = versions.outList(v);
+			
+			for(int i = 0; i < degree; i++)
+				action.accept(list[i]);
+		}
+	}
+	
+	/*
+	 * Gives the ID of every in adjacent vertex of the vertex with ID v to action, straight from the int list
+	 */
+	public void forEachInNeighbor(int v, IntConsumer action){
+		int degree = inDegree(v);
+		
+		if(degree > 0){
+			int[] list = versions.inList(v);
+			
+			for(int i = 0; i < degree; i++)
+				action.accept(list[i]);
+		}
+	}
+	
 	/*
 	 * Creates a new vertex and inserts it in the vertices table
 	 */
 	public Vertex insertVertex(String key){
 		Vertex vertex = new Vertex(key);
+		vertex.setId(nextVertexId++);
 		vertices.put(key, vertex);
 		
+		//The arrays indexed by vertex ID grow together
+		if(vertex.getId() == vertexById.length){
+			vertexById = Arrays.copyOf(vertexById, vertexById.length * 2);
+			outAdjacencyList = Arrays.copyOf(outAdjacencyList, vertexById.length);
+			inAdjacencyList = Arrays.copyOf(inAdjacencyList, vertexById.length);
+		}
+		
+		vertexById[vertex.getId()] = vertex;
+		versions.setVertex(vertex.getId(), vertex);
+		
 		return vertex;
 	}
 	
@@ -247,323 +408,489 @@ public class DirectedGraph {
 	 */
 	public Arc insertArc(Vertex source, Vertex target){
 		Arc arc = new Arc(source, target);
-		String sourceKey = source.getKey();
-		String targetKey = target.getKey();
+		arc.setId(nextArcId++, arcWeights);
 		
-		//Checks the hashtable to see if the Vertex already has an arc
-		if(arcs.containsKey(source)){
-			arcs.get(source).put(target, arc);
-		}
+		//A later arc between the same vertices takes the place of the earlier one in the index
+		addById(arc);
+		index(arc);
 		
-		/*If the Vertex does not exist in the hashtable,
-		 * It creates a new sub-hashtable, puts the Arc in the table, and 
-		 * puts the sub-hashtable in the hashtable
-		 */
-		else{
-			Hashtable<Vertex, Arc> arcTable = new Hashtable<Vertex, Arc>();
-			arcTable.put(target, arc);
-			
-			arcs.put(source, arcTable);
-		}
+		//Adds the arc to the end of its adjacency lists and the arc list
+		addOut(arc);
+		addIn(arc);
+		
+		arc.listIndex = arcList.size();
+		arcList.add(arc);
+		return arc;
+	}
+	
+	/*
+	 * Puts an arc in the arcById array, doubling the array if it is full
+	 */
+	private void addById(Arc arc){
+		if(arc.getId() >= arcById.length)
+			arcById = Arrays.copyOf(arcById, Math.max(arcById.length * 2, arc.getId() + 1));
 		
-		//Checks the hashtable to see if the Vertex key exists
-		if(outAdjacencyList.containsKey(sourceKey)){
-			outAdjacencyList.get(sourceKey).add(targetKey);
+		arcById[arc.getId()] = arc;
+	}
+	
+	/*
+	 * Adds an arc to the end of its source's out list, making the list if the source has none
+	 */
+	private void addOut(Arc arc){
+		int source = arc.getSource().getId();
+		ArrayList <Arc> outArcs = outAdjacencyList[source];
+		
+		if(outArcs == null){
+			outArcs = new ArrayList <Arc>();
+			outAdjacencyList[source] = outArcs;
 		}
 		
-		/* If the Vertex key does not exist, it creates a new ArrayList,
-		 * adds the Vertex to the Arraylist, and adds the ArrayList to the
-		 * hashtable
-		 */
-		else{
-			ArrayList <String> vertexArrayList = new ArrayList <String>();
-				vertexArrayList.add(targetKey);
-			
-			outAdjacencyList.put(sourceKey, vertexArrayList);
+		arc.outIndex = outArcs.size();
+		outArcs.add(arc);
+		versions.addOut(arc.getSource().getId(), arc.getTarget().getId());
+	}
+	
+	/*
+	 * Adds an arc to the end of its target's in list, making the list if the target has none
+	 */
+	private void addIn(Arc arc){
+		int target = arc.getTarget().getId();
+		ArrayList <Arc> inArcs = inAdjacencyList[target];
+		
+		if(inArcs == null){
+			inArcs = new ArrayList <Arc>();
+			inAdjacencyList[target] = inArcs;
 		}
 		
-		/*
-		 * Checks the hashtable to see if the Vertex key exists
-		 */
-		if(inAdjacencyList.containsKey(targetKey)){
-			inAdjacencyList.get(targetKey).add(sourceKey);
+		arc.inIndex = inArcs.size();
+		inArcs.add(arc);
+		versions.addIn(arc.getTarget().getId(), arc.getSource().getId());
+	}
+	
+	/*
+	 * Takes an arc out of its source's out list by moving the last arc of the list into its place.
+	 * The list is dropped once it is empty
+	 */
+	private void removeOut(Arc arc){
+		int source = arc.getSource().getId();
+		ArrayList <Arc> outArcs = outAdjacencyList[source];
+		Arc last = outArcs.remove(outArcs.size() - 1);
+		versions.removeOut(source, arc.outIndex);
+		
+		if(last != arc){
+			outArcs.set(arc.outIndex, last);
+			last.outIndex = arc.outIndex;
 		}
 		
-		/*
-		 * If it does not exist it creates a new ArrayList,
-		 * adds the Vertex to the ArrayList, and adds the ArrayList
-		 * to the hashtable
-		 */
-		else{
-			ArrayList <String> vertexArrayList = new ArrayList <String>();
-			vertexArrayList.add(sourceKey);
-			
-			inAdjacencyList.put(targetKey, vertexArrayList);
+		if(outArcs.isEmpty())
+			outAdjacencyList[source] = null;
+	}
+	
+	/*
+	 * Takes an arc out of its target's in list by moving the last arc of the list into its place.
+	 * The list is dropped once it is empty
+	 */
+	private void removeIn(Arc arc){
+		int target = arc.getTarget().getId();
+		ArrayList <Arc> inArcs = inAdjacencyList[target];
+		Arc last = inArcs.remove(inArcs.size() - 1);
+		versions.removeIn(target, arc.inIndex);
+		
+		if(last != arc){
+			inArcs.set(arc.inIndex, last);
+			last.inIndex = arc.inIndex;
 		}
 		
-		//Adds the arc to arcList array
-		arcList.add(arc);
-		return arc;
+		if(inArcs.isEmpty())
+			inAdjacencyList[target] = null;
 	}
 	
 	/*
-	 * Sets the data on a vertex
+	 * Inserts count arcs at once.  Arc i goes from vertexList[sources[i]] to vertexList[targets[i]]
+	 * with weight weights[i].  The adjacency lists, arc index, and arcById array are made with their final size
+	 * first, so nothing has to grow or be looked up by key while the arcs are added
 	 */
-	public void setVertexData(Vertex v, String data){
-		v.setData((String) data);
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, int[] weights, int count){
+		insertArcs(vertexList, sources, targets, weights, null, count);
 	}
 	
 	/*
-	 * Sets the weight of an arc
+	 * Inserts count arcs at once in the given order, arc order[0] first.  The order is null to insert them
+	 * from 0 to count - 1.  GraphBuilder passes the arcs sorted by source, so they don't have to be copied
 	 */
-	public void setArcData(Arc a, String data){
-		a.setWeight(data);
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, int[] weights, int[] order, int count){
+		insertArcs(vertexList, sources, targets, new ArcWeights(weights), order, count);
 	}
 	
 	/*
-	 * Removes the vertex from the vertices list.  Updates the in/out adjacency lists and arc list
+	 * Inserts count arcs at once in the given order, with arc i's weight read from weights as a double,
+	 * so GraphFile can load float and double weights without truncating them
 	 */
-	public String removeVertex(Vertex v){
-		String vKey = v.getKey();
-		int vOut = 0;
-		vOut = outAdjacencyList.get(vKey).size();
-		
-		//No arcs attached to v
-		if(vOut == 0 && vOut == 0){
-			vertices.remove(vKey);
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, ArcWeights weights, int[] order, int count){
+		int n = vertexList.length;
+		int[] outCount = new int[n];
+		int[] inCount = new int[n];
+		
+		//Count the arcs going out of and into each vertex
+		for(int i = 0; i < count; i++){
+			outCount[sources[i]]++;
+			inCount[targets[i]]++;
 		}
 		
-		//Arcs out of v
-		ArrayList <String> outList = outAdjacencyList.get(vKey);
-			
-		//For each outgoing vertex from v
-		for(int i = 0; i < outList.size(); i++){
-			
-			String targetVKey = outList.get(i);
+		@SuppressWarnings("unchecked")
+		ArrayList<Arc>[] outLists = new ArrayList[n];
+		@SuppressWarnings("unchecked")
+		ArrayList<Arc>[] inLists = new ArrayList[n];
+		
+		//Get or make each vertex's lists with room for the new arcs
+		for(int v = 0; v < n; v++){
+			int id = vertexList[v].getId();
 			
-			//If v is not the only vertex incoming to targetV, delete only v
-			if(inAdjacencyList.get(targetVKey).size() > 1){
-				inAdjacencyList.get(targetVKey).remove(vKey);
+			if(outCount[v] > 0){
+				outLists[v] = outAdjacencyList[id];
+				
+				if(outLists[v] == null){
+					outLists[v] = new ArrayList <Arc>(outCount[v]);
+					outAdjacencyList[id] = outLists[v];
+				}
+				
+				else
+					outLists[v].ensureCapacity(outLists[v].size() + outCount[v]);
 				
-				//Remove the arc with v as source and targetV as target
-				arcs.get(v).remove(vertices.get(targetVKey));
+				versions.reserveOut(id, outCount[v]);
 			}
 			
-			//If v is the only vertex incoming to targetV, delete the key
-			else{
-				inAdjacencyList.remove(targetVKey);
+			if(inCount[v] > 0){
+				inLists[v] = inAdjacencyList[id];
+				
+				if(inLists[v] == null){
+					inLists[v] = new ArrayList <Arc>(inCount[v]);
+					inAdjacencyList[id] = inLists[v];
+				}
+				
+				else
+					inLists[v].ensureCapacity(inLists[v].size() + inCount[v]);
 				
-				//Remove the only arc with v as source and targetV as target
-				arcs.remove(v);
+				versions.reserveIn(id, inCount[v]);
 			}
 		}
 		
-		//Remove v from outAdjacencyList
-		outAdjacencyList.remove(vKey);
+		arcList.ensureCapacity(arcList.size() + count);
+		arcWeights.ensureCapacity(nextArcId + count);
 		
-		//Arcs into vertex
-		ArrayList <String> inList = inAdjacencyList.get(vKey);
+		if(nextArcId + count > arcById.length)
+			arcById = Arrays.copyOf(arcById, nextArcId + count);
+		
+		if(arcIndex.size() == 0 && count > 16)
+			arcIndex = new ArcIndex(count);
+		
+		//Add each arc the same way insertArc does
+		for(int j = 0; j < count; j++){
+			int i = order == null ? j : order[j];
+			Vertex source = vertexList[sources[i]];
+			Vertex target = vertexList[targets[i]];
+			Arc arc = new Arc(source, target);
+			arc.setId(nextArcId++, arcWeights);
+			arcWeights.set(arc.getId(), weights.get(i));
 			
-		//For each incoming vertex to v
-		for(int i = 0; i < inList.size(); i++){
-			String targetVKey = inList.get(i);
+			arcById[arc.getId()] = arc;
+			index(arc);
 			
-			//If v is not the only vertex outgoing from targetV, delete only v
-			if(outAdjacencyList.get(targetVKey).size() > 1){
-				outAdjacencyList.get(targetVKey).remove(vKey);
-				
-				//Remove the arc with targetV as the source and v as the target
-				arcs.get(vertices.get(targetVKey)).remove(v);
-			}
-			
-			//If v is the only vertex outgoing from targetV, delete the key
-			else{
-				outAdjacencyList.remove(targetVKey);
-				
-				//Remove the only arc with targetV as the source and v as the target
-				arcs.remove(vertices.get(targetVKey));
-			}
+			arc.outIndex = outLists[sources[i]].size();
+			outLists[sources[i]].add(arc);
+			arc.inIndex = inLists[targets[i]].size();
+			inLists[targets[i]].add(arc);
+			versions.addOut(source.getId(), target.getId());
+			versions.addIn(target.getId(), source.getId());
+			arc.listIndex = arcList.size();
+			arcList.add(arc);
 		}
+	}
+	
+	/*
+	 * Sets the data on a vertex
+	 */
+	public void setVertexData(Vertex v, String data){
+		v.setData((String) data);
+	}
+	
+	/*
+	 * Sets the weight of an arc
+	 */
+	public void setArcData(Arc a, String data){
+		a.setWeight(data);
+	}
+	
+	/*
+	 * Removes the vertex from the vertices list, along with every arc into or out of it.
+	 * Each arc is removed in constant time, so this takes time in proportion to the vertex's degree
+	 */
+	public String removeVertex(Vertex v){
+		String vKey = v.getKey();
+		ArrayList <Arc> outArcs = outList(v.getId());
+		ArrayList <Arc> inArcs = inList(v.getId());
+		
+		//Remove the arcs out of v from the end of its list, so nothing has to move.
+		//The list is dropped by removeArc when it is empty
+		while(outArcs != null && !outArcs.isEmpty())
+			removeArc(outArcs.get(outArcs.size() - 1));
 		
-		inAdjacencyList.remove(vKey);
+		//Remove the arcs into v the same way
+		while(inArcs != null && !inArcs.isEmpty())
+			removeArc(inArcs.get(inArcs.size() - 1));
 		
-		//Remove the vertex from the vertices list
+		//Remove the vertex from the vertices list, along with its annotations
 		vertices.remove(vKey);
+		vertexAttributes.removeAll(v.getId());
+		vertexById[v.getId()] = null;
+		versions.setVertex(v.getId(), null);
 		
 		return v.getData();
 	}
 	
 	/*
-	 * Removes the arc from the arcList and arcTable.  
+	 * Removes the arc from the arcList, the arc table, and both adjacency lists in constant time.
+	 * Returns the arc's weight, or null if the arc isn't in the graph
 	 */
 	public Object removeArc(Arc a){
-		Vertex source = a.getSource();
-		Vertex target = a.getTarget();
-		String targetKey = target.getKey();
-		String sourceKey = source.getKey();
-		int targetIn = inAdjacencyList.get(targetKey).size();
-		int sourceOut = outAdjacencyList.get(sourceKey).size();
-		
-		//Extracts the Hashtable of Arcs that matches a's source
-		Hashtable <Vertex, Arc> arcList = arcs.get(source);
-		
-		//If the arrayList has multiple Arcs from the same source
-		if(sourceOut > 1){
-			arcList.remove(target);
-			outAdjacencyList.get(sourceKey).remove(targetKey);
-			
-			if(targetIn > 1){
-				inAdjacencyList.get(targetKey).remove(sourceKey);
-			}
-			
-			else{
-				inAdjacencyList.remove(targetKey);
-			}
-		}
 		
-		//Else remove the source and arc from the arc list
-		else{
-			arcs.remove(sourceKey);
-			
-			outAdjacencyList.remove(targetKey);
-			
-			if(targetIn > 1){
-				inAdjacencyList.get(targetKey).remove(sourceKey);
-			}
-			
-			else{
-				inAdjacencyList.remove(targetKey);
-			}
+		//The arc list position tells whether the arc is still in the graph
+		if(a.listIndex < 0 || a.listIndex >= arcList.size() || arcList.get(a.listIndex) != a)
+			return null;
+		
+		arcById[a.getId()] = null;
+		
+		removeOut(a);
+		removeIn(a);
+		unindex(a);
+		
+		//Move the last arc of the arc list into the removed arc's place
+		Arc last = arcList.remove(arcList.size() - 1);
+		
+		if(last != a){
+			arcList.set(a.listIndex, last);
+			last.listIndex = a.listIndex;
 		}
 		
-		arcList.remove(a);
+		a.listIndex = -1;
 		
-		return (String) a.getWeight();
+		String weight = a.getWeight();
+		arcAttributes.removeAll(a.getId());
+		
+		return weight;
 	}
 	
 	/*
-	 * Switches the source and target of an arc.  Updates the in/out adjacency list
+	 * Puts an arc in the arc index in place of the arc already there between the same vertices,
+	 * and links the two so the earlier arc can go back in the index when the later one is removed
 	 */
-	public void reverseDirection(Arc a){
-		Vertex target = a.getTarget();
-		Vertex source = a.getSource();
-		String targetKey = target.getKey();
-		String sourceKey = source.getKey();
-		int targetIn = inAdjacencyList.get(targetKey).size();
-		int sourceOut = outAdjacencyList.get(sourceKey).size();
+	private void index(Arc arc){
+		int old = arcIndex.put(arc.getSource().getId(), arc.getTarget().getId(), arc.getId());
 		
-		//If the target has multiple incoming arcs, remove only the sourceKey
-		if(targetIn > 1)
-			inAdjacencyList.get(targetKey).remove(sourceKey);
-		
-		//Else remove the key targetKey as it will have no incoming arcs after the switch
-		else
-			inAdjacencyList.remove(targetKey);
-		
-		//If the target has any outgoing arcs, add the source to the list
-		if(outAdjacencyList.containsKey(targetKey))
-			outAdjacencyList.get(targetKey).add(sourceKey);
+		if(old >= 0){
+			arc.olderParallel = arcById[old];
+			arcById[old].newerParallel = arc;
+		}
+	}
+	
+	/*
+	 * Takes an arc out of the arc index in constant time.  The index holds the newest arc between
+	 * two vertices, so if this arc is that one the next older parallel arc takes its place
+	 */
+	private void unindex(Arc a){
+		int source = a.getSource().getId();
+		int target = a.getTarget().getId();
 		
-		//Else create a new list and add the list to the new outAdjacencyList with target as the key
-		else{
-			ArrayList <String> vertexArrayList1 = new ArrayList <String>();
-			vertexArrayList1.add(sourceKey);
+		if(a.newerParallel == null){
+			if(a.olderParallel != null)
+				arcIndex.put(source, target, a.olderParallel.getId());
 			
-			outAdjacencyList.put(targetKey, vertexArrayList1);
+			else
+				arcIndex.remove(source, target);
 		}
 		
-		//If the source has multiple outgoing arcs, remove only the targetKey
-		if(sourceOut > 1)
-			outAdjacencyList.get(sourceKey).remove(targetKey);
-		
-		//Else remove the key sourceKey as it will have no outgoing arcs after the switch
 		else
-			outAdjacencyList.remove(sourceKey);
+			a.newerParallel.olderParallel = a.olderParallel;
 		
-		//If the source has any outgoing arcs, add the target to the list
-		if(inAdjacencyList.containsKey(sourceKey))
-			inAdjacencyList.get(sourceKey).add(targetKey);
+		if(a.olderParallel != null)
+			a.olderParallel.newerParallel = a.newerParallel;
 		
-		//Else create a new list and add the list to the new inAdjacencyList with source as the key
-		else{
-			ArrayList <String> vertexArrayList2 = new ArrayList <String>();
-			vertexArrayList2.add(targetKey);
-			
-			inAdjacencyList.put(sourceKey, vertexArrayList2);
-		}
+		a.newerParallel = null;
+		a.olderParallel = null;
+	}
+	
+	/*
+	 * Switches the source and target of an arc.  Updates the in/out adjacency lists and the arc index
+	 */
+	public void reverseDirection(Arc a){
+		Vertex target = a.getTarget();
+		Vertex source = a.getSource();
+		
+		//Take the arc out of its lists and the index under the old direction
+		removeOut(a);
+		removeIn(a);
+		unindex(a);
 		
 		//Switch direction of the arc
 		a.setSource(target);
 		a.setTarget(source);
+		
+		//Put it back under the new direction
+		addOut(a);
+		addIn(a);
+		index(a);
 	}
 	
 	/*
-	 * Adds a new key and value to the hash map annotation for the vertex
+	 * Freezes the graph into a read-only CSR view with dense int vertex IDs.
+	 * Later changes to this graph are not seen by the view.
+	 */
+	public CsrGraph toCsr(){
+		int n = vertices.size();
+		Vertex[] vertexList = new Vertex[n];
+		HashMap <String, Integer> ids = new HashMap <String, Integer>(n * 2);
+
+		//Give every vertex a dense ID
+		Iterator <Map.Entry<String, Vertex>> it = vertices();
+		int id = 0;
+
+		while(it.hasNext()){
+			Vertex currV = it.next().getValue();
+			vertexList[id] = currV;
+			ids.put(currV.getKey(), id);
+			id++;
+		}
+
+		int[] outOffsets = new int[n + 1];
+		int[] inOffsets = new int[n + 1];
+
+		//The dense ID of each vertex by its graph ID
+		int[] denseIds = new int[nextVertexId];
+
+		for(int i = 0; i < n; i++)
+			denseIds[vertexList[i].getId()] = i;
+
+		//Count the degrees of each vertex, then turn the counts into offsets
+		for(int i = 0; i < n; i++){
+			outOffsets[i + 1] = outOffsets[i] + outDegree(vertexList[i]);
+			inOffsets[i + 1] = inOffsets[i] + inDegree(vertexList[i]);
+		}
+
+		int[] outTargets = new int[outOffsets[n]];
+		int[] inTargets = new int[inOffsets[n]];
+
+		//Copy the adjacency lists into the flat arrays
+		for(int i = 0; i < n; i++){
+			ArrayList <Arc> outArcs = outAdjacencyList[vertexList[i].getId()];
+			ArrayList <Arc> inArcs = inAdjacencyList[vertexList[i].getId()];
+
+			for(int j = 0; outArcs != null && j < outArcs.size(); j++)
+				outTargets[outOffsets[i] + j] = denseIds[outArcs.get(j).getTarget().getId()];
+
+			for(int j = 0; inArcs != null && j < inArcs.size(); j++)
+				inTargets[inOffsets[i] + j] = denseIds[inArcs.get(j).getSource().getId()];
+		}
+
+		return new CsrGraph(vertexList, ids, outOffsets, outTargets, inOffsets, inTargets);
+	}
+
+	/*
+	 * Returns a read-only copy of the vertices and arcs as they are now, in constant time.
+	 * The graph can go on changing while other threads read the snapshot
+	 */
+	public GraphSnapshot snapshot(){
+		return versions.freeze(nextVertexId, vertices.size(), arcList.size());
+	}
+	
+	/*
+	 * Returns the type of the arc weights, ArcWeights.INT, FLOAT, or DOUBLE
+	 */
+	public int getWeightType(){
+		return arcWeights.getType();
+	}
+	
+	/*
+	 * Returns the weight column of the arcs, indexed by Arc.getId()
+	 */
+	public ArcWeights arcWeights(){
+		return arcWeights;
+	}
+	
+	/*
+	 * Returns the weight of an arc as a double
+	 */
+	public double getWeight(Arc a){
+		return arcWeights.get(a.getId());
+	}
+	
+	/*
+	 * Returns the weight of an arc as an int
+	 */
+	public int getIntWeight(Arc a){
+		return arcWeights.getInt(a.getId());
+	}
+	
+	/*
+	 * Sets the weight of an arc
+	 */
+	public void setWeight(Arc a, double weight){
+		arcWeights.set(a.getId(), weight);
+	}
+	
+	/*
+	 * Sets the weight of an arc from an int
+	 */
+	public void setWeight(Arc a, int weight){
+		arcWeights.set(a.getId(), weight);
+	}
+	
+	/*
+	 * Adds a new key and value to the annotation columns for the vertex
 	 */
 	public void setAnnotation(Vertex v, Object k, Object o){
-		v.annotation.put(k, o);
+		vertexAttributes.set(v.getId(), k, o);
 	}
 	
 	/*
-	 * Adds a new key and value to the hash map annotation for the arc
+	 * Adds a new key and value to the annotation columns for the arc
 	 */
 	public void setAnnotation(Arc a, Object k, Object o){
-		a.annotation.put(k, o);
+		arcAttributes.set(a.getId(), k, o);
 	}
 	
 	/*
-	 * Returns the corresponding value of a particular key for a vertex from the hash map annotation
+	 * Returns the corresponding value of a particular key for a vertex from the annotation columns
 	 */
 	public Object getAnnotation(Vertex v, Object k){
-		return v.annotation.get(k);
+		return vertexAttributes.get(v.getId(), k);
 	}
 	
 	/*
-	 * Returns the corresponding value of a particular key for an arc from the hash map annotation
+	 * Returns the corresponding value of a particular key for an arc from the annotation columns
 	 */
 	public Object getAnnotation(Arc a, Object k){
-		return a.annotation.get(k);
+		return arcAttributes.get(a.getId(), k);
 	}
 	
 	/*
-	 * Removes the key and it's corresponding value for a vertex from the hash map annotation
+	 * Removes the key and it's corresponding value for a vertex from the annotation columns
 	 */
 	public Object removeAnnotation(Vertex v, Object k){
-		Object obj = v.annotation.get(k);
-		v.annotation.remove(k);
-		
-		return obj;
+		return vertexAttributes.remove(v.getId(), k);
 	}
 	
 	/*
-	 * Removes the key and it's corresponding value for a arc from the hash map annotation
+	 * Removes the key and it's corresponding value for a arc from the annotation columns
 	 */
 	public Object removeAnnotation(Arc a, Object k){
-		Object obj = a.annotation.get(k);
-		a.annotation.remove(k);
-		
-		return obj;
+		return arcAttributes.remove(a.getId(), k);
 	}
 		
 	/*
-	 * Removes all of a particular key on both arcs and vertices
+	 * Removes all of a particular key on both arcs and vertices by dropping its columns
 	 */
 	public void clearAnnotations(Object k){
-		Iterator <Map.Entry<String, Vertex>> vertices = vertices();
-		
-		while(vertices.hasNext()){
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			
-			Vertex currVertex = hashT.getValue();
-			
-			if(currVertex.annotation.containsKey(k))
-				removeAnnotation(currVertex, k);
-		}
-		
-		for(int i = 0; i < arcList.size(); i++){
-			Arc currArc = arcList.get(i);
-			if(currArc.annotation.containsKey(k))
-				removeAnnotation(currArc, k);
-		}
+		vertexAttributes.removeColumn(k);
+		arcAttributes.removeColumn(k);
 	}
 }
@@ -0,0 +1,375 @@
+package project3;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * This class computes the mean geodesic distance and the diameter of a CsrGraph
+ * by running a BFS from every vertex on a fork/join pool.
+ * The sources are split into ranges, and each worker thread keeps its own distance
+ * and queue arrays so nothing is shared while the searches run.
+ * Each range returns its own sums and largest distance, which are combined at the end.
+ *
+ * In batched mode the sources are run 64 * batchWords at a time as a multi-source BFS (MS-BFS).
+ * Each vertex keeps batchWords longs of "seen by source i" bits, so one pass over an
+ * adjacency list moves the frontier of every source in the batch at once.
+ *
+ * In hybrid mode each source runs a direction-optimizing HybridBFS instead, and the
+ * result also counts how many levels ran top-down and how many ran bottom-up.
+ *
+ * The methods can:
+ * run the all sources BFS on a given number of threads, one source or one batch of sources at a time
+ * provide the sum of all distances, the number of reachable pairs, the mean, and the diameter
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class GeodesicEngine {
+
+	//Ranges with fewer sources than this are not split any further
+	private static final int MIN_SOURCES = 16;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The number of 64 bit words of sources in a batch, or 0 to run one source at a time
+	private final int batchWords;
+
+	//True to run each source with a direction-optimizing search
+	private boolean hybrid = false;
+
+	//Each worker thread reuses its own BFS arrays for every source it is given
+	private final ThreadLocal <int[][]> workspace;
+	private final ThreadLocal <long[][]> batchWorkspace;
+	private final ThreadLocal <HybridBFS> hybridWorkspace;
+
+	//Runs one source at a time
+	public GeodesicEngine(CsrGraph csr, int threads){
+		this(csr, threads, 0);
+	}
+
+	//Runs 64 * batchWords sources at a time, or one at a time if batchWords is 0
+	public GeodesicEngine(CsrGraph csr, int threads, int batchWords){
+		this.csr = csr;
+		this.threads = Math.max(1, threads);
+		this.batchWords = Math.max(0, batchWords);
+
+		final int n = csr.numVertices();
+		final int words = this.batchWords;
+
+		workspace = new ThreadLocal <int[][]>(){
+			protected int[][] initialValue(){
+				return new int[][] {new int[n], new int[n]};
+			}
+		};
+
+		batchWorkspace = new ThreadLocal <long[][]>(){
+			protected long[][] initialValue(){
+				return new long[][] {new long[n * words], new long[n * words], new long[n * words]};
+			}
+		};
+
+		hybridWorkspace = new ThreadLocal <HybridBFS>(){
+			protected HybridBFS initialValue(){
+				return new HybridBFS(GeodesicEngine.this.csr);
+			}
+		};
+	}
+
+	/*
+	 * Sets whether each source runs a direction-optimizing search.  This takes the place of batches
+	 */
+	public void setHybrid(boolean hybrid){
+		this.hybrid = hybrid;
+	}
+
+	/*
+	 * Runs a BFS from every vertex and returns the combined result
+	 */
+	public Result run(){
+		if(csr.numVertices() == 0)
+			return new Result();
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			if(batchWords > 0 && !hybrid){
+				int batchSize = 64 * batchWords;
+				int batches = (csr.numVertices() + batchSize - 1) / batchSize;
+
+				return pool.invoke(new BatchRange(0, batches));
+			}
+
+			return pool.invoke(new SourceRange(0, csr.numVertices()));
+		}
+
+		finally{
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Does a BFS from s using the calling thread's arrays and adds it to the result
+	 */
+	private void bfs(int s, Result result){
+		int[][] arrays = workspace.get();
+		int[] distance = arrays[0];
+		int[] queue = arrays[1];
+
+		//Only the vertices reached by the last search have to be reset
+		int head = 0;
+		int tail = 0;
+
+		distance[s] = 1;
+		queue[tail++] = s;
+
+		//Distances are stored plus one so that 0 can mean unvisited
+		while(head < tail){
+			int currV = queue[head++];
+			int nextDistance = distance[currV] + 1;
+
+			for(int i = csr.outOffsets[currV]; i < csr.outOffsets[currV + 1]; i++){
+				int adjV = csr.outTargets[i];
+
+				if(distance[adjV] == 0){
+					distance[adjV] = nextDistance;
+					queue[tail++] = adjV;
+					result.totalDistance += nextDistance - 1;
+				}
+			}
+		}
+
+		//The last vertex in the queue is the farthest one away
+		int farthest = distance[queue[tail - 1]] - 1;
+
+		if(farthest > result.diameter)
+			result.diameter = farthest;
+
+		//Don't count the starting vertex
+		result.totalReached += tail - 1;
+
+		for(int i = 0; i < tail; i++)
+			distance[queue[i]] = 0;
+	}
+
+	/*
+	 * Does a direction-optimizing BFS from s using the calling thread's search and adds it to the result
+	 */
+	private void hybridBfs(int s, Result result){
+		HybridBFS search = hybridWorkspace.get();
+		search.run(s);
+
+		result.totalDistance += search.getTotalDistance();
+		result.totalReached += search.getReached();
+		result.topDownLevels += search.getTopDownLevels();
+		result.bottomUpLevels += search.getBottomUpLevels();
+
+		if(search.getFarthest() > result.diameter)
+			result.diameter = search.getFarthest();
+	}
+
+	/*
+	 * Does a multi-source BFS from the count sources starting at ID first and adds it to the result.
+	 * Bit i of a vertex's words is set in seen once source first + i has reached it,
+	 * and in visit while the vertex is on source first + i's frontier
+	 */
+	private void msbfs(int first, int count, Result result){
+		long[][] arrays = batchWorkspace.get();
+		long[] seen = arrays[0];
+		long[] visit = arrays[1];
+		long[] next = arrays[2];
+		int n = csr.numVertices();
+		int k = batchWords;
+
+		Arrays.fill(seen, 0);
+		Arrays.fill(visit, 0);
+
+		//Each source starts out seen by itself and on its own frontier
+		for(int i = 0; i < count; i++){
+			int pos = (first + i) * k + (i >>> 6);
+			long bit = 1L << (i & 63);
+
+			seen[pos] |= bit;
+			visit[pos] |= bit;
+		}
+
+		int level = 0;
+		boolean active = true;
+
+		while(active){
+			level++;
+			active = false;
+
+			//Push the frontier bits of every vertex to its out adjacent vertices in one pass
+			for(int v = 0; v < n; v++){
+				int base = v * k;
+
+				if(!anySet(visit, base, k))
+					continue;
+
+				for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1]; i++){
+					int adjBase = csr.outTargets[i] * k;
+
+					for(int j = 0; j < k; j++)
+						next[adjBase + j] |= visit[base + j] & ~seen[adjBase + j];
+				}
+			}
+
+			//The bits that reached a vertex for the first time make up the next frontier
+			for(int pos = 0; pos < n * k; pos++){
+				long found = next[pos];
+
+				if(found != 0){
+					int reached = Long.bitCount(found);
+
+					seen[pos] |= found;
+					result.totalDistance += (long) reached * level;
+					result.totalReached += reached;
+					active = true;
+				}
+
+				visit[pos] = found;
+				next[pos] = 0;
+			}
+
+			//The last level that reached anything is the farthest any source got
+			if(active && level > result.diameter)
+				result.diameter = level;
+		}
+	}
+
+	/*
+	 * Returns true if any of the k words starting at base are not zero
+	 */
+	private static boolean anySet(long[] words, int base, int k){
+		for(int j = 0; j < k; j++){
+			if(words[base + j] != 0)
+				return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * A range of batches that splits in half until it is a single batch
+	 */
+	private class BatchRange extends RecursiveTask <Result> {
+		private final int from;
+		private final int to;
+
+		BatchRange(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Result compute(){
+			if(to - from == 1){
+				Result result = new Result();
+				int batchSize = 64 * batchWords;
+				int first = from * batchSize;
+
+				msbfs(first, Math.min(batchSize, csr.numVertices() - first), result);
+				return result;
+			}
+
+			int mid = (from + to) >>> 1;
+			BatchRange left = new BatchRange(from, mid);
+			left.fork();
+
+			Result result = new BatchRange(mid, to).compute();
+			result.add(left.join());
+
+			return result;
+		}
+	}
+
+	/*
+	 * A range of sources that splits in half until it is small enough to search directly
+	 */
+	private class SourceRange extends RecursiveTask <Result> {
+		private final int from;
+		private final int to;
+
+		SourceRange(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Result compute(){
+			if(to - from <= MIN_SOURCES){
+				Result result = new Result();
+
+				for(int s = from; s < to; s++){
+					if(hybrid)
+						hybridBfs(s, result);
+
+					else
+						bfs(s, result);
+				}
+
+				return result;
+			}
+
+			int mid = (from + to) >>> 1;
+			SourceRange left = new SourceRange(from, mid);
+			left.fork();
+
+			Result result = new SourceRange(mid, to).compute();
+			result.add(left.join());
+
+			return result;
+		}
+	}
+
+	/*
+	 * The sums from one or more BFS runs
+	 */
+	public static class Result {
+		long totalDistance = 0;
+		long totalReached = 0;
+		int diameter = 0;
+		long topDownLevels = 0;
+		long bottomUpLevels = 0;
+
+		//Adds the sums of another result to this one
+		void add(Result other){
+			totalDistance += other.totalDistance;
+			totalReached += other.totalReached;
+			topDownLevels += other.topDownLevels;
+			bottomUpLevels += other.bottomUpLevels;
+
+			if(other.diameter > diameter)
+				diameter = other.diameter;
+		}
+
+		//The sum of the distances of every reachable pair
+		public long getTotalDistance(){
+			return totalDistance;
+		}
+
+		//The number of reachable pairs
+		public long getTotalReached(){
+			return totalReached;
+		}
+
+		//The average distance between reachable pairs
+		public double getMeanDistance(){
+			return (double) totalDistance / (double) totalReached;
+		}
+
+		//The biggest distance between a reachable pair
+		public int getDiameter(){
+			return diameter;
+		}
+
+		//The number of hybrid BFS levels that ran top-down
+		public long getTopDownLevels(){
+			return topDownLevels;
+		}
+
+		//The number of hybrid BFS levels that ran bottom-up
+		public long getBottomUpLevels(){
+			return bottomUpLevels;
+		}
+	}
+}
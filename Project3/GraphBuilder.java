@@ -0,0 +1,431 @@
+package project3;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * This class collects the vertices and arcs of a graph in flat arrays and then builds a
+ * DirectedGraph or UndirectedGraph out of them all at once, instead of one insertVertex and insertArc at a time.
+ * The graph is made with every table and list already at the size it will end up, so nothing rehashes or grows.
+ *
+ * Before the arcs go in they are put in order of their source with a counting sort, which is stable, so the
+ * arcs out of a vertex keep the order they were added in.  With more than one thread the arcs are cut into
+ * blocks: every block counts its sources on its own thread, the counts are turned into starting positions,
+ * and then every block moves its arcs into place on its own thread.
+ * An undirected graph is sorted by the lower vertex of each arc instead, so the arcs between the same
+ * two vertices stay in the order they were added and the last one still sets the weight.
+ *
+ * The methods can:
+ * add vertices by key, and arcs by vertex number or key, one at a time, from arrays, or from an iterator
+ * keep the weights as ints, or as doubles when the graphs are built with float or double weights
+ * sort the arcs by source on a given number of threads
+ * build a DirectedGraph or UndirectedGraph with exactly the room it needs
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class GraphBuilder {
+
+	//Blocks of fewer arcs than this are not given their own thread
+	private static final int MIN_BLOCK = 1 << 16;
+
+	private int threads = 1;
+	private int weightType = ArcWeights.INT;
+
+	//The vertices in the order they were added, and a map from key to vertex number made when it is first needed
+	private int numVertices = 0;
+	private String[] keys;
+	private String[] data;
+	private HashMap <String, Integer> keyIndex = null;
+
+	//True while keys and data are still the arrays passed in, which are copied before they are changed
+	private boolean sharedVertices = false;
+
+	//The arcs as vertex numbers and weights.  The weights are in realWeights instead of weights,
+	//which is null, when the weight type isn't ArcWeights.INT, so fractions aren't lost
+	private int numArcs = 0;
+	private int[] sources;
+	private int[] targets;
+	private int[] weights;
+	private double[] realWeights = null;
+
+	public GraphBuilder(){
+		this(16, 16);
+	}
+
+	//Makes the arrays big enough for the expected number of vertices and arcs
+	public GraphBuilder(int vertexHint, int arcHint){
+		keys = new String[Math.max(16, vertexHint)];
+		data = new String[keys.length];
+		sources = new int[Math.max(16, arcHint)];
+		targets = new int[sources.length];
+		weights = new int[sources.length];
+	}
+
+	//Uses arrays that were already filled in, such as by VnaReader, without copying them until a vertex is added or changed.
+	//Either weights or realWeights is given, by the weight type
+	GraphBuilder(String[] keys, String[] data, int numVertices, int[] sources, int[] targets, int[] weights, double[] realWeights, int weightType, int numArcs){
+		this.keys = keys;
+		this.data = data;
+		this.numVertices = numVertices;
+		this.sources = sources;
+		this.targets = targets;
+		this.weights = weights;
+		this.realWeights = realWeights;
+		this.weightType = weightType;
+		this.numArcs = numArcs;
+		sharedVertices = true;
+	}
+
+	/*
+	 * Sets the number of threads the arcs are sorted on
+	 */
+	public void setThreads(int threads){
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Sets the type of the weights of the graphs that are built, ArcWeights.INT, FLOAT, or DOUBLE.
+	 * The weights added so far move to doubles for FLOAT or DOUBLE, or are truncated to ints for INT
+	 */
+	public void setWeightType(int weightType){
+		if(weightType != ArcWeights.INT && realWeights == null){
+			realWeights = new double[weights.length];
+
+			for(int i = 0; i < numArcs; i++)
+				realWeights[i] = weights[i];
+
+			weights = null;
+		}
+
+		else if(weightType == ArcWeights.INT && realWeights != null){
+			weights = new int[realWeights.length];
+
+			for(int i = 0; i < numArcs; i++)
+				weights[i] = (int) realWeights[i];
+
+			realWeights = null;
+		}
+
+		this.weightType = weightType;
+	}
+
+	/*
+	 * Returns the number of vertices added
+	 */
+	public int numVertices(){
+		return numVertices;
+	}
+
+	/*
+	 * Returns the number of arcs added
+	 */
+	public int numArcs(){
+		return numArcs;
+	}
+
+	/*
+	 * Adds a vertex with no data and returns its vertex number.  A key that was already added just gives its number
+	 */
+	public int addVertex(String key){
+		Integer known = keyIndex().get(key);
+
+		if(known != null)
+			return known;
+
+		return addVertex(key, null);
+	}
+
+	/*
+	 * Adds a vertex and returns its vertex number.  A key that was already added keeps its number and gets the new data
+	 */
+	public int addVertex(String key, String vertexData){
+		Integer known = keyIndex().get(key);
+
+		//Copy arrays that came from somewhere else, such as a VnaReader, so they aren't changed
+		if(sharedVertices || numVertices == keys.length){
+			keys = Arrays.copyOf(keys, Math.max(16, Math.max(keys.length, numVertices * 2)));
+			data = Arrays.copyOf(data, keys.length);
+			sharedVertices = false;
+		}
+
+		if(known != null){
+			data[known] = vertexData;
+			return known;
+		}
+
+		keys[numVertices] = key;
+		data[numVertices] = vertexData;
+		keyIndex.put(key, numVertices);
+
+		return numVertices++;
+	}
+
+	/*
+	 * Returns the map from key to vertex number, making it from the vertices added so far the first time
+	 */
+	private HashMap <String, Integer> keyIndex(){
+		if(keyIndex == null){
+			keyIndex = new HashMap <String, Integer>(Math.max(16, numVertices * 2));
+
+			for(int i = 0; i < numVertices; i++)
+				keyIndex.put(keys[i], i);
+		}
+
+		return keyIndex;
+	}
+
+	/*
+	 * Adds an arc from vertex number source to vertex number target
+	 */
+	public void addArc(int source, int target, int weight){
+		addArc(source, target, (double) weight);
+	}
+
+	/*
+	 * Adds an arc from vertex number source to vertex number target with a weight that is truncated for INT weights
+	 */
+	public void addArc(int source, int target, double weight){
+		if(source < 0 || source >= numVertices || target < 0 || target >= numVertices)
+			throw new IndexOutOfBoundsException("Arc " + source + " -> " + target + " with " + numVertices + " vertices");
+
+		ensureArcs(numArcs + 1);
+
+		sources[numArcs] = source;
+		targets[numArcs] = target;
+
+		if(realWeights != null)
+			realWeights[numArcs] = weight;
+
+		else
+			weights[numArcs] = (int) weight;
+
+		numArcs++;
+	}
+
+	/*
+	 * Adds an arc between two vertex keys, adding either vertex first if it hasn't been added
+	 */
+	public void addArc(String sourceKey, String targetKey, int weight){
+		int source = addVertex(sourceKey);
+		int target = addVertex(targetKey);
+
+		addArc(source, target, weight);
+	}
+
+	/*
+	 * Adds an arc between two vertex keys with a weight that is truncated for INT weights
+	 */
+	public void addArc(String sourceKey, String targetKey, double weight){
+		int source = addVertex(sourceKey);
+		int target = addVertex(targetKey);
+
+		addArc(source, target, weight);
+	}
+
+	/*
+	 * Adds count arcs from arrays of vertex numbers.  weights can be null for arcs with a weight of 0
+	 */
+	public void addArcs(int[] arcSources, int[] arcTargets, int[] arcWeights, int count){
+		ensureArcs(numArcs + count);
+
+		for(int i = 0; i < count; i++){
+			if(arcSources[i] < 0 || arcSources[i] >= numVertices || arcTargets[i] < 0 || arcTargets[i] >= numVertices)
+				throw new IndexOutOfBoundsException("Arc " + arcSources[i] + " -> " + arcTargets[i] + " with " + numVertices + " vertices");
+		}
+
+		System.arraycopy(arcSources, 0, sources, numArcs, count);
+		System.arraycopy(arcTargets, 0, targets, numArcs, count);
+
+		if(realWeights != null){
+			for(int i = 0; i < count; i++)
+				realWeights[numArcs + i] = arcWeights == null ? 0 : arcWeights[i];
+		}
+
+		else if(arcWeights != null)
+			System.arraycopy(arcWeights, 0, weights, numArcs, count);
+
+		else
+			Arrays.fill(weights, numArcs, numArcs + count, 0);
+
+		numArcs += count;
+	}
+
+	/*
+	 * Adds the arcs of an iterator, each one an array of {source, target} or {source, target, weight}.
+	 * sizeHint is the number of arcs expected, so the arrays only have to grow once
+	 */
+	public void addArcs(Iterator <int[]> arcs, int sizeHint){
+		ensureArcs(numArcs + Math.max(0, sizeHint));
+
+		while(arcs.hasNext()){
+			int[] arc = arcs.next();
+
+			addArc(arc[0], arc[1], arc.length > 2 ? arc[2] : 0);
+		}
+	}
+
+	/*
+	 * Makes the arc arrays hold at least size arcs
+	 */
+	private void ensureArcs(int size){
+		if(size <= sources.length)
+			return;
+
+		int capacity = Math.max(size, sources.length * 2);
+
+		sources = Arrays.copyOf(sources, capacity);
+		targets = Arrays.copyOf(targets, capacity);
+		if(realWeights != null)
+			realWeights = Arrays.copyOf(realWeights, capacity);
+
+		else
+			weights = Arrays.copyOf(weights, capacity);
+	}
+
+	/*
+	 * Builds a DirectedGraph with every vertex and arc added.  The arcs are inserted in order of their source
+	 */
+	public DirectedGraph buildDirected(){
+		DirectedGraph graph = new DirectedGraph(weightType, numVertices, numArcs);
+		Vertex[] vertexList = new Vertex[numVertices];
+
+		for(int i = 0; i < numVertices; i++){
+			vertexList[i] = graph.insertVertex(keys[i]);
+			graph.setVertexData(vertexList[i], data[i]);
+		}
+
+		int[] order = sortBy(sources);
+		graph.insertArcs(vertexList, sources, targets, weightColumn(), order, numArcs);
+
+		return graph;
+	}
+
+	/*
+	 * Builds an UndirectedGraph with every vertex and an arc for every pair of vertices with an arc added.
+	 * The arcs are inserted in order of their lower vertex
+	 */
+	public UndirectedGraph buildUndirected(){
+		UndirectedGraph graph = new UndirectedGraph(weightType, numVertices, numArcs);
+		Vertex[] vertexList = new Vertex[numVertices];
+
+		for(int i = 0; i < numVertices; i++){
+			vertexList[i] = graph.insertVertex(keys[i]);
+			graph.setVertexData(vertexList[i], data[i]);
+		}
+
+		int[] lower = new int[numArcs];
+
+		for(int i = 0; i < numArcs; i++)
+			lower[i] = Math.min(sources[i], targets[i]);
+
+		int[] order = sortBy(lower);
+		graph.insertArcs(vertexList, sources, targets, weightColumn(), order, numArcs);
+
+		return graph;
+	}
+
+	/*
+	 * Returns the weights added, indexed by arc number, as a column the graphs can read without copying
+	 */
+	private ArcWeights weightColumn(){
+		if(realWeights != null)
+			return new ArcWeights(realWeights);
+
+		return new ArcWeights(weights);
+	}
+
+	/*
+	 * Returns the arc numbers in order of their vertex number in by, keeping the order they were added
+	 * for arcs with the same vertex.  This is a counting sort, split into blocks of arcs across threads
+	 */
+	public int[] sortBy(final int[] by){
+		final int blocks = (int) Math.max(1, Math.min(threads, (long) numArcs / MIN_BLOCK));
+		final int blockSize = (numArcs + blocks - 1) / Math.max(1, blocks);
+		final int[][] counts = new int[blocks][numVertices + 1];
+		final int[] order = new int[numArcs];
+
+		ForkJoinPool pool = blocks > 1 ? new ForkJoinPool(blocks) : null;
+
+		try{
+			//Every block counts the arcs of each vertex
+			forEachBlock(pool, blocks, new BlockTask(){
+				void run(int b){
+					int[] count = counts[b];
+					int end = Math.min(numArcs, (b + 1) * blockSize);
+
+					for(int i = b * blockSize; i < end; i++)
+						count[by[i]]++;
+				}
+			});
+
+			//Turn the counts into the position each block starts each vertex at, vertex by vertex and then block by block
+			int pos = 0;
+
+			for(int v = 0; v < numVertices; v++){
+				for(int b = 0; b < blocks; b++){
+					int count = counts[b][v];
+					counts[b][v] = pos;
+					pos += count;
+				}
+			}
+
+			//Every block moves its arcs into place
+			forEachBlock(pool, blocks, new BlockTask(){
+				void run(int b){
+					int[] next = counts[b];
+					int end = Math.min(numArcs, (b + 1) * blockSize);
+
+					for(int i = b * blockSize; i < end; i++)
+						order[next[by[i]]++] = i;
+				}
+			});
+		}
+
+		finally{
+			if(pool != null)
+				pool.shutdown();
+		}
+
+		return order;
+	}
+
+	/*
+	 * Runs task on every block, on the pool if there is one
+	 */
+	private static void forEachBlock(ForkJoinPool pool, final int blocks, final BlockTask task){
+		if(pool == null){
+			for(int b = 0; b < blocks; b++)
+				task.run(b);
+
+			return;
+		}
+
+		pool.invoke(new RecursiveAction(){
+			protected void compute(){
+				RecursiveAction[] actions = new RecursiveAction[blocks];
+
+				for(int b = 0; b < blocks; b++){
+					final int block = b;
+
+					actions[b] = new RecursiveAction(){
+						protected void compute(){
+							task.run(block);
+						}
+					};
+				}
+
+				invokeAll(actions);
+			}
+		});
+	}
+
+	/*
+	 * The work done on one block of arcs
+	 */
+	private static abstract class BlockTask {
+		abstract void run(int b);
+	}
+}
@@ -10,9 +10,6 @@ import java.io.*;
  * 
  * The methods:
  * build both directed and undirected graph objects while providing their associated metrics
- * builds vertices and arcs
- * traverse the graphs both breadth first and depth first
- * tracks visited nodes in a DFS with DFS visit
  * 
  * They also calculate:
  * reciprocity (directed), degree correlation (undirected),
@@ -29,148 +26,173 @@ public class GraphDriver{
 	static DirectedGraph dirGraph;
 	static UndirectedGraph undirGraph;
 	
-	//Variables for DFS, SCC, filename, and diameter
-	static int time = 0;
+	//Variables for SCC, filename, and diameter
 	static int scc = 0;
 	static String fname;
 	static double maxDistance = 0;
 	
+	//The number of threads used by the parallel metrics
+	static int threads = Runtime.getRuntime().availableProcessors();
+	
+	//The number of 64 source words in each geodesic BFS batch
+	static int batchWords = 4;
+	
+	//Whether the geodesic BFS switches between top-down and bottom-up levels
+	static boolean hybridBFS = false;
+	
+	//The number of HyperLogLog registers per vertex for an approximate geodesic distance, or 0 for the exact one
+	static int anfRegisters = 0;
+	
+	//Whether the exact diameter is found by bounding eccentricities instead of a BFS from every vertex
+	static boolean exactDiameter = false;
+	
+	//Whether the average local clustering coefficient is printed too
+	static boolean localClustering = false;
+	
+	//The number of wedges to sample, or the target error of the sample, for an approximate clustering coefficient
+	static long wedgeSamples = 0;
+	static double wedgeError = 0;
+	
+	//The binary snapshot file to write, if any
+	static String convertTo = null;
+	
+	//The type the arc weights are read and stored as, ArcWeights.INT, FLOAT, or DOUBLE
+	static int weightType = ArcWeights.INT;
+	
 	public static void main(String[] args){
-		try{
+		
+		//Read in the options given on the command line
+		for(int i = 0; i < args.length; i++){
 			
-			//Read in file
-			Scanner fileinput = new Scanner(System.in);
-			System.out.print("Enter the filename: ");
-			fname = fileinput.next();
+			//The number of threads for the parallel metrics
+			if(args[i].equals("-threads") && i + 1 < args.length)
+				threads = Integer.parseInt(args[++i]);
 			
-			//Makes the directed graph
-			File filename = new File(fname);
-			Scanner filein = new Scanner(filename);
-			directedGraph(filein);
+			//Run the geodesic BFS in batches of 64 * K sources (0 runs one source at a time)
+			else if(args[i].equals("-batch") && i + 1 < args.length)
+				batchWords = Integer.parseInt(args[++i]);
 			
-			dirGraph = null;
+			//Run each geodesic BFS as a direction-optimizing (top-down/bottom-up) search
+			else if(args[i].equals("-hybrid"))
+				hybridBFS = true;
 			
-			//Makes the undirected graph
-			filein = new Scanner(filename);
-			undirectedGraph(filein);
+			//Approximate the geodesic distance and diameter with R HyperLogLog registers per vertex
+			else if(args[i].equals("-anf") && i + 1 < args.length)
+				anfRegisters = Integer.parseInt(args[++i]);
 			
-			undirGraph = null;
-		}
-		
-		//If the given file is not valid return an error
-		catch(FileNotFoundException e){
-			System.out.println("FileNotFoundException: " + e.getMessage());
-		}
-	}
-	
-	/*
-	 * This method determines strongly connected components, density,
-	 * total arcs/nodes, reciprocity, geodesic distance, diameter, and
-	 * in/out degree statistics.
-	 */
-	public static void directedGraph(Scanner filein){
-		
-		//Set the in/out counters
-		int minIn = 0;
-		int minOut = 0;
-		int maxIn = 0;
-		int maxOut = 0;
-		
-		//Determines whether it's node or arc data
-		boolean connectGraph = false;
-
-		//Create the directed graph object
-		dirGraph = new DirectedGraph();
-		
-		//Get node information from the file
-		String currLine = filein.nextLine();
-		filein.nextLine();
-		
-		//Read in each file line by line
-		while(filein.hasNextLine()){
-		
-		currLine = filein.nextLine();
+			//Find only the exact diameter, with as few BFS runs as the bounds allow
+			else if(args[i].equals("-diameter"))
+				exactDiameter = true;
 			
-			//Disregard property lines
-			if(currLine.contains("*")){
-				connectGraph = true;
-				filein.nextLine();
-				currLine = filein.nextLine();
-			}
+			//Print the average of the local clustering coefficients of every vertex
+			else if(args[i].equals("-local"))
+				localClustering = true;
+			
+			//Estimate the clustering coefficient from a sample of wedges
+			else if(args[i].equals("-sample") && i + 1 < args.length)
+				wedgeSamples = Long.parseLong(args[++i]);
 			
-			//The arc data
-			if(connectGraph){
-				String source;
-				String target;
-				int weight;
-				String [] line = new String [4];
-				line = currLine.split(" +");
-				source = line[0];
-				target = line[1];
+			//Estimate the clustering coefficient from enough wedges to be within an error
+			else if(args[i].equals("-error") && i + 1 < args.length)
+				wedgeError = Double.parseDouble(args[++i]);
+			
+			//Write the parsed graph to a binary snapshot file
+			else if(args[i].equals("-convert") && i + 1 < args.length)
+				convertTo = args[++i];
+			
+			//Read and store the arc weights as int, float, or double
+			else if(args[i].equals("-weights") && i + 1 < args.length){
+				String type = args[++i];
 				
-				//If no weight data is given set arc weight to 0
-				if(line.length < 3)
-					weight = 0;
+				if(type.equals("float"))
+					weightType = ArcWeights.FLOAT;
 				
-				//Turns weight from string to double to int
-				else if(line[2].contains(".")){
-					weight = (int) Double.parseDouble(line[2]);
-				}
+				else if(type.equals("double"))
+					weightType = ArcWeights.DOUBLE;
 				
 				else
-					//If the weight is already int
-					weight = Integer.parseInt(line[2]);
+					weightType = ArcWeights.INT;
+			}
+		}
+		
+		try{
+			
+			//Read in file
+			Scanner fileinput = new Scanner(System.in);
+			System.out.print("Enter the filename: ");
+			fname = fileinput.next();
+			
+			//A binary snapshot is memory mapped and its arrays are used as they are.  The metrics run on its
+			//CSR view and the undirected view merged from its in and out ranges, so no graph objects are built
+			if(GraphFile.isGraphFile(fname)){
+				CsrGraph csr = GraphFile.open(fname).toCsr();
+				
+				directedMetrics(csr);
 				
-				//Add the arc information to the graph
-				connectGraph(source, target, weight, true);
+				undirectedMetrics(csr.toUndirected());
 			}
 			
-			//The vertex data
 			else{
-				String node;
-				String data;
-				String[] line = new String[3];
+				//Memory maps and parses the file, with the ties split across threads
+				VnaReader reader = VnaReader.read(fname, threads, weightType);
 				
-				line = currLine.split(" +");
-				node = line[0];
+				//Saves a binary snapshot so the next run doesn't have to parse the file
+				if(convertTo != null)
+					GraphFile.write(reader, convertTo);
 				
-				//No data associated with vertex key
-				if(line.length < 2)
-					data = null;
+				//Makes the directed graph in one pass with the ties sorted by source across threads,
+				//and the undirected graph from its in and out lists
+				GraphBuilder builder = reader.builder();
+				builder.setThreads(threads);
+				reader = null;
 				
-				else
-					data = line[1];
+				dirGraph = builder.buildDirected();
+				builder = null;
+				undirGraph = UndirectedGraph.fromDirected(dirGraph);
 				
-				//Add the vertex information to the graph
-				makeVertex(node, data, true);
+				directedMetrics();
+				dirGraph = null;
+				
+				undirectedMetrics();
 			}
+			
+			undirGraph = null;
 		}
 		
-		//Create an iterator of vertices
-		Iterator <Map.Entry<String, Vertex>> vertices = dirGraph.vertices();
-		
-		//Create a hashtable of <String, Vertex> objects and iterate through the vertices
-		Map.Entry<String, Vertex> hashTable = (Map.Entry<String, Vertex>) vertices.next();
+		//If the given file is not valid return an error
+		catch(FileNotFoundException e){
+			System.out.println("FileNotFoundException: " + e.getMessage());
+		}
 		
-		//Get the in and out degree statistics from the directed graph
-		minIn = dirGraph.inDegree(hashTable.getValue());
-		minOut = dirGraph.outDegree(hashTable.getValue());
-		maxIn = dirGraph.inDegree(hashTable.getValue());
-		maxOut = dirGraph.outDegree(hashTable.getValue());
+		//If the file could not be read or parsed
+		catch(IOException e){
+			System.out.println("IOException: " + e.getMessage());
+		}
+	}
+	
+	/*
+	 * This method prints the directed graph metrics for dirGraph
+	 */
+	public static void directedMetrics(){
+		directedMetrics(dirGraph.toCsr());
+	}
+	
+	/*
+	 * This method prints the directed graph metrics from a CSR view, which is all a binary snapshot needs
+	 */
+	public static void directedMetrics(CsrGraph csr){
+		int n = csr.numVertices();
 		
-		int currIn = 0;
-		int currOut = 0;
+		//Get the in and out degree statistics from the first vertex
+		int minIn = csr.inDegree(0);
+		int minOut = csr.outDegree(0);
+		int maxIn = minIn;
+		int maxOut = minOut;
 		
-		//Find the min and max in and out degrees by iterating over the vertices
-		while(vertices.hasNext()){
-			
-			//Gets the next set of vertices
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			Vertex currV = hashT.getValue();
-			
-			
-			currIn = dirGraph.inDegree(currV);
-			currOut = dirGraph.outDegree(currV);
+		//Find the min and max in and out degrees from the offsets of every vertex
+		for(int v = 1; v < n; v++){
+			int currIn = csr.inDegree(v);
+			int currOut = csr.outDegree(v);
 			
 			//Update the current in/out to the max in/out
 			if(currIn > maxIn)
@@ -187,138 +209,82 @@ public class GraphDriver{
 		}
 		
 		//Get the total vertices and arcs
-		double totalVertices = (double) dirGraph.numVertices();
-		double totalArcs = (double) dirGraph.numArcs();
+		double totalVertices = (double) n;
+		double totalArcs = (double) csr.numArcs();
 		
-		//Print the basic graph information
+		//Print the basic graph information.  Every arc adds one to an in degree and one to an out degree
 		System.out.println("Graph name: " + fname + " (Directed Graph)");
 		System.out.println("Vertex total: " + totalVertices);
 		System.out.println("Arc total: " + totalArcs);
 		System.out.format("%s%.5f\n", "Graph density: ", totalArcs/(totalVertices * (totalVertices - 1)));
-		System.out.println("Min/Avg/Max inDegree: " + minIn + " / " + (double) dirGraph.totalInVertices()/ (double) dirGraph.numVertices() + " / " + maxIn);
-		System.out.println("Min/Avg/Max outDegree: " + minOut + " / " + (double) dirGraph.totalOutVertices()/ (double) dirGraph.numVertices() + " / " + maxOut);
+		System.out.println("Min/Avg/Max inDegree: " + minIn + " / " + totalArcs/totalVertices + " / " + maxIn);
+		System.out.println("Min/Avg/Max outDegree: " + minOut + " / " + totalArcs/totalVertices + " / " + maxOut);
 		
 		//Get reciprocity and geodesic distance
-		double reciprocity = reciprocity();
-		double geodesic = geodesicDistance();
+		double reciprocity = reciprocity(csr);
+		double geodesic = -1;
+		
+		//The exact diameter on its own skips the BFS from every vertex
+		if(exactDiameter)
+			diameter(csr);
+		
+		if(anfRegisters > 0)
+			geodesic = approximateGeodesic(csr);
+		
+		else if(!exactDiameter)
+			geodesic = geodesicDistance(csr);
 		
 		//Print out the reciprocity, geodesic distance, and diameter
 		System.out.println("Reciprocity: " + reciprocity);
-		System.out.println("Mean Geodesic Distance: " + geodesic);
-		System.out.println("Diameter: " + maxDistance);
+		
+		if(geodesic >= 0)
+			System.out.println("Mean Geodesic Distance: " + geodesic);
+		
+		//Without the exact diameter, the HyperANF iterations are only a lower bound on it
+		if(anfRegisters > 0 && !exactDiameter)
+			System.out.println("Approximate Diameter (lower bound): " + maxDistance);
+		
+		else
+			System.out.println("Diameter: " + maxDistance);
 		
 		//Get the strongly connected components
-		List<ArrayList<Vertex>> finalList = SCC();
+		SccEngine sccEngine = new SccEngine(csr, threads);
+		scc = sccEngine.numComponents();
 		
 		System.out.println("Number of Strongly Connected Components: " + scc);
 		
-		
-		Collections.sort(finalList, new Comparator<ArrayList<Vertex>>(){
-			public int compare(ArrayList<Vertex> a1, ArrayList<Vertex> a2){
-				return a2.size() - a1.size();
-			}
-		});
+		//The size of the largest strongly connected component
+		int largest = sccEngine.largestComponent();
 		
 		//Print out the strongly connected components
-		System.out.format("%s%.0f\n", "Percent Vertices in Largest Strongly Connected Component: ", (double) finalList.get(0).size()/dirGraph.numVertices() * 100);
+		System.out.format("%s%.0f\n", "Percent Vertices in Largest Strongly Connected Component: ", (double) largest/n * 100);
 		System.out.println();
 	}
 	
 	/*
-	 * This method determines density, total arcs/nodes, 
-	 * clustering coefficient, degree correlation, and
-	 * degree statistics.
+	 * This method prints the undirected graph metrics for undirGraph
 	 */
-	public static void undirectedGraph(Scanner filein){
-		int min;
-		int max;
-		
-		 //Create the undirected graph object
-		 undirGraph = new UndirectedGraph();
-		 
-		 //Determines whether it's a vertex or an arc
-		 boolean connectGraph = false;
-			
-		 	//Read in the file
-			String currLine = filein.nextLine();
-			filein.nextLine();
-			
-			//Read in each file line by line
-			while(filein.hasNextLine()){
-			
-			currLine = filein.nextLine();
-				
-				//Disregard property lines
-				if(currLine.contains("*")){
-					connectGraph = true;
-					filein.nextLine();
-					currLine = filein.nextLine();
-				}
-				
-				//The arc data
-				if(connectGraph){
-					String source;
-					String target;
-					int weight;
-					String [] line = new String [4];
-					line = currLine.split(" +");
-					source = line[0];
-					target = line[1];
-					
-					//If no weight is provided set it to 0
-					if(line.length < 3)
-						weight = 0;
-					
-					//Turns weight from string to double to int
-					else if(line[2].contains(".")){
-						weight = (int) Double.parseDouble(line[2]);
-					}
-					
-					//If the weight is already int
-					else
-					weight = Integer.parseInt(line[2]);
-					
-					//Add the arc information to the graph
-					connectGraph(source, target, weight, false);
-				}
-				
-				//The vertex data
-				else{
-					String node;
-					String data;
-					String[] line = new String[3];
-					
-					line = currLine.split(" +");
-					node = line[0];
-					
-					//No data associated with vertex key
-					if(line.length < 2)
-						data = null;
-					
-					else
-						data = line[1];
-					
-					//Add vertex information to the graph
-					makeVertex(node, data, false);
-				}
-			}
-			
-			//Create an iterator of the vertices
-			Iterator <Map.Entry<String, Vertex>> vertices = undirGraph.vertices();
+	public static void undirectedMetrics(){
+		undirectedMetrics(undirGraph.toCsr());
+	}
+	
+	/*
+	 * This method prints the undirected graph metrics from an undirected CSR view,
+	 * where every arc is in both of its vertices' ranges
+	 */
+	public static void undirectedMetrics(CsrGraph csr){
+			int min;
+			int max;
+			int n = csr.numVertices();
 			min = 0;
 			max = 0;
 			
 			int curr = 0;
 			int totalCurr = 0;
 			
-			//Find the min and max in and out degrees
-			while(vertices.hasNext()){
-				
-				//Gets the next set of vertices
-				Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-				Vertex currV = hashT.getValue();
-				
-				curr = undirGraph.degree(currV);
+			//Find the min and max degrees
+			for(int v = 0; v < n; v++){
+				curr = csr.outDegree(v);
 				
 				//Update the current min and max degrees
 				if(curr > max)
@@ -331,9 +297,9 @@ public class GraphDriver{
 				totalCurr += curr;
 			}
 			
-			//Get the total vertices and arcs
-			double totalVertices = (double) undirGraph.numVertices();
-			double totalArcs = (double) undirGraph.numArcs();
+			//Get the total vertices and arcs.  Each arc is in two ranges (a loop is in its vertex's range twice)
+			double totalVertices = (double) n;
+			double totalArcs = (double) (csr.numArcs() / 2);
 			
 			//Print out the basic information
 			System.out.println("Graph name: " + fname + " (Undirected Graph)");
@@ -341,99 +307,72 @@ public class GraphDriver{
 			System.out.println("Arc total: " + totalArcs);
 			System.out.format("%s%.5f\n", "Graph density: ", totalArcs/(totalVertices * (totalVertices - 1)));
 			System.out.println("Min/Avg/Max Degree: " + min + " / " + (double) totalCurr/totalVertices + " / " + max);
-			double clusteringCo = clusteringCoefficient();
-			double degreeCorr = degreeCorrelation();
+			double clusteringCo;
+			
+			if(wedgeSamples > 0 || wedgeError > 0)
+				clusteringCo = approximateClustering(csr);
+			
+			else
+				clusteringCo = clusteringCoefficient(csr);
+			
+			double degreeCorr = degreeCorrelation(csr);
 			
 			//Print out the clustering coefficient and degree correlation
 			System.out.println("Clustering Coefficent: " + clusteringCo);
 			System.out.println("Degree Correlation: " + degreeCorr);
 	}
 	
-	//Figures out how many reciprocal edges (vertices that share arcs in both directions) there are
-	public static double reciprocity(){
-		
-		//An Iterator for all the directed graph arcs
-		Iterator <Arc> it = dirGraph.arcs();
-		
-		//The current arc and it's vertex source and 
-		Arc currArc;
-		Vertex source;
-		Vertex target;
-		double rec = 0;
-		
-		//Iterates through all the arcs
-		while(it.hasNext()){
-			currArc = it.next();
-			source = currArc.getSource();
-			target = currArc.getTarget();
-			
-			//If the reverse arc exists
-			if(dirGraph.getArc(target, source) != null)
-				rec++;
-		}
+	//Figures out how many reciprocal edges there are by merging each vertex's sorted out and in lists
+	//on the CSR view.  The vertices are split across threads
+	public static double reciprocity(CsrGraph csr){
+		ReciprocityEngine engine = new ReciprocityEngine(csr, threads);
+		engine.run();
 		
 		//The percentage of reciprocal edges
-		rec = rec / dirGraph.numArcs();
-		
-		return rec;
+		return engine.getReciprocity();
 	}
 	
-	//Figures out how many vertices share an adjacent vertex
-	public static double clusteringCoefficient(){
-		double closed = 0;
-		double total = 0;
-		
-		//An Iterator for the vertices and the 3 vertices to compare
-		Iterator <Map.Entry<String, Vertex>> vertices = undirGraph.vertices();
-		Vertex firstV;
-		Vertex secV;
-		Vertex thirdV;
-		
-		//For each vertex
-		while(vertices.hasNext()){
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			firstV = hashT.getValue();
-			
-			Iterator <Vertex> secIt = undirGraph.adjacentVertices(firstV);
-				
-				//For each adjacent vertex
-				while(secIt.hasNext()){
-					secV = secIt.next();
-						
-						//For each adjacent adjacent vertex 
-						Iterator <Vertex> thirdIt = undirGraph.adjacentVertices(secV);
-						while(thirdIt.hasNext()){
-							thirdV = thirdIt.next();
-							
-							//Excludes the first vertex from the adjacency list
-							if(thirdV != firstV){
-								
-								//If the arc exists
-								if(undirGraph.getArc(firstV, thirdV) != null)
-									closed++;
-								
-								//Reverse arc is the same
-								else if(undirGraph.getArc(thirdV, firstV) != null)
-									closed++;
-								
-								total++;
-							}
-						}
-				}
-		}
+	//Figures out how many vertices share an adjacent vertex by counting triangles on the CSR view.
+	//The arcs are split across threads
+	public static double clusteringCoefficient(CsrGraph csr){
+		TriangleEngine engine = new TriangleEngine(csr, threads);
+		engine.run();
+		
+		double closed = engine.getClosed();
+		double total = engine.getTotal();
 		
 		//Prints the closed and total clusters.  The coefficient is their fraction.
 		System.out.println("closed: " + closed);
 		System.out.println("total: " + total);
 		
+		if(localClustering)
+			System.out.println("Average Local Clustering Coefficient: " + engine.getAverageLocalCoefficient());
+		
 		return closed/total;
 	}
 	
+	//Estimates the clustering coefficient from a sample of wedges picked evenly from the whole graph
+	public static double approximateClustering(CsrGraph csr){
+		WedgeSampler sampler = new WedgeSampler(csr);
+		
+		if(wedgeSamples > 0)
+			sampler.sample(wedgeSamples);
+		
+		else
+			sampler.sampleToError(wedgeError);
+		
+		//Prints the sampled and closed wedges, and the 95% confidence interval
+		System.out.println("Sampled wedges: " + sampler.getSamples() + " (closed: " + sampler.getClosed() + ")");
+		System.out.println("95% confidence interval: " + sampler.getLowerBound() + " - " + sampler.getUpperBound());
+		
+		return sampler.getEstimate();
+	}
+	
 	//Finds the coefficient that measures the correlation of
 	//high degree vertices to low degree vertices.
 	//The formula is ((s1 * (se*2)) - s2^2)/((s1 * s3) - s2^2)
 	//With the s variables representing calculated sums to various degrees
-	public static double degreeCorrelation(){
+	public static double degreeCorrelation(CsrGraph csr){
 		
 		//The 4 variables used for the fomula
 		double s1 = 0;
@@ -443,28 +382,13 @@ public class GraphDriver{
 		
 		//The degree variables for the examined vertex
 		double vDegree = 0;
-		double sourceDegree = 0; 
-		double targetDegree = 0;
 		double r = 0;
 		
-		//The target vertex, it's adjacent vertices, and the arc(s) between them
-		Vertex currV;
-		Vertex source;
-		Vertex target;
-		Arc currArc;
-		
-		//An Iterator for the vertices
-		Iterator <Map.Entry<String, Vertex>> vertices = undirGraph.vertices();
-		
 		//Iterate through all vertices.  Record their degrees as vDegree.
-		while(vertices.hasNext()){
-			
-			//The hashtable associated with the Vertex needed to get the vertex/currV
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			currV = hashT.getValue();
+		for(int v = 0; v < csr.numVertices(); v++){
 			
 			//The degree of the current vertex
-			vDegree = undirGraph.degree(currV);
+			vDegree = csr.outDegree(v);
 			
 			//s1 is the sum of the degrees
 			s1 += vDegree;
@@ -474,378 +398,61 @@ public class GraphDriver{
 			
 			//s3 is the sum of the degrees cubed
 			s3 += Math.pow(vDegree, 3);
-		}
-		
-		//An Iterator for all the arcs
-		Iterator <Arc> arcs = undirGraph.arcs();
-			
-		//Iterate through all the arcs.  Record the source times the target.
-		while(arcs.hasNext()){
-			currArc = arcs.next();
-			
-			source = currArc.getSource();
-			target = currArc.getTarget();
 			
-			sourceDegree = undirGraph.degree(source);
-			targetDegree = undirGraph.degree(target);
-			
-			//se is the sum of the source times the degrees for each arc
-			se += (sourceDegree * targetDegree);
+			//Every arc is in the ranges of both its vertices, so adding the source times the target
+			//for each range entry gives se already doubled
+			for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1]; i++)
+				se += vDegree * csr.outDegree(csr.outTargets[i]);
 		}
 		
-		//The formula needs se to be doubled
-		se = se * 2;
-		
 		//The formula for degree correlation
 		r = ((s1 * se) - Math.pow(s2, 2))/((s1 * s3) - Math.pow(s2, 2));
 		
 		return r;
 	}
 	
-	//Mean geodesic distance is the average path length between all pairs of vertices
-	public static double geodesicDistance(){
-		
-		//The current vertex being examined
-		Vertex currV = null;
-		
-		//The sum of all BFS results
-		double[] total = {0, 0};
+	//Mean geodesic distance over the CSR view of the graph.  The BFS from every vertex is split across threads
+	//and run in batches of sources that share each pass over the adjacency lists
+	public static double geodesicDistance(CsrGraph csr){
+		GeodesicEngine engine = new GeodesicEngine(csr, threads, batchWords);
+		engine.setHybrid(hybridBFS);
 		
-		//The result of each BFS for that vertex
-		double[] temp = {0, 0};
+		GeodesicEngine.Result result = engine.run();
 		
-		//An Iterator for all vertices
-		Iterator <Map.Entry<String, Vertex>> vertices = dirGraph.vertices();
+		//Report which direction the hybrid BFS levels ran in
+		if(hybridBFS)
+			System.out.println("Top-down/Bottom-up BFS levels: " + result.getTopDownLevels() + " / " + result.getBottomUpLevels());
 		
-		
-		//For all vertices call BFS, get the sum of their distances and total distance
-		while(vertices.hasNext()){
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			currV = hashT.getValue();
-			
-			temp = BFS(currV);
-			
-			total[0] += temp[0];
-			total[1] += temp[1];
-		}
+		//The biggest distance traversed is the diameter
+		if(result.getDiameter() > maxDistance)
+			maxDistance = result.getDiameter();
 		
 		//The average geodesic distance
-		return total[0]/total[1];
-	}
-	
-	//Does a breadth first search on the graph
-	public static double[] BFS(Vertex s){
-		double[] total = {0, 0};
-
-		Vertex currV = null;
-		Vertex adjV = null;
-		double distance = 0;
-		Iterator <Vertex> adjVertices;
-		Iterator <Map.Entry<String, Vertex>> vertices = dirGraph.vertices();
-		
-		//Initialize all the vertices
-		while(vertices.hasNext()){
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			currV = hashT.getValue();
-			
-			//Initialize all the vertices as white
-			dirGraph.setAnnotation(currV, "color", "white");
-			dirGraph.setAnnotation(currV, "distance", "inf");
-			dirGraph.setAnnotation(currV, "parent", "none");	
-		}
-		
-		//Initialize s as gray
-		dirGraph.setAnnotation(s, "color", "gray");
-		dirGraph.setAnnotation(s, "distance", "0");
-		dirGraph.setAnnotation(s, "parent", "none");
-		
-		//Make a queue and add s to it
-		Queue<Vertex> Q = new LinkedList<Vertex>();
-		Q.add(s);
-		
-		//While the queue is not empty 
-		while(Q.size() != 0){
-			currV = Q.poll();
-			
-			adjVertices = dirGraph.outAdjacentVertices(currV);
-			
-			//For each adjacent vertex to currV
-			while(adjVertices.hasNext()){
-				adjV = adjVertices.next();
-				
-				//If it's unvisited give the node a parent and distance
-				if(dirGraph.getAnnotation(adjV, "color") == "white"){
-					
-					//Get the distance of currV and increment it by 1 to make it
-					distance = Double.valueOf((String)dirGraph.getAnnotation(currV, "distance"));
-					distance++;
-					
-					//Set the adjacent vertex as gray and make it's parent the current vertex
-					dirGraph.setAnnotation(adjV, "color", "gray");
-					dirGraph.setAnnotation(adjV, "distance", String.valueOf(distance));
-					dirGraph.setAnnotation(adjV, "parent", currV);
-					
-					//Add the newly edited adjacent vertex to the queue
-					Q.add(adjV);
-					
-					//Add the distance to the total distance
-					total[0] = total[0] + (distance);
-					
-					//The biggest distance traversed is the diameter
-					if(distance > maxDistance)
-						maxDistance = distance;
-				}
-			}
-			
-			//Set node as visited all adjacent vertices
-			dirGraph.setAnnotation(currV, "color", "black");
-			total[1]++;
-		}
-		
-		//Don't count the starting vertex
-		total[1] --;
-		return total;
+		return result.getMeanDistance();
 	}
 	
-	//Adds a vertex to either directed or undirected graph
-	public static void makeVertex(String node, String data, boolean directed){
+	//Exact diameter of the CSR view from eccentricity bounds.  Prints how many BFS runs it took
+	public static void diameter(CsrGraph csr){
+		DiameterEngine engine = new DiameterEngine(csr, threads);
+		engine.run();
 		
-		//Use the DirectedGraph methods to add a new vertex
-		if(directed){
-			Vertex realNode = dirGraph.insertVertex(node);
-			dirGraph.setVertexData(realNode, data);
-		}
-		
-		//Use the UndirectedGraph methods to add a new vertex
-		else{
-			Vertex realNode = undirGraph.insertVertex(node);
-			undirGraph.setVertexData(realNode, data);
-		}
-	}
-	
-	//Sets arcs given two vertices for either directed or undirected graphs
-	public static void connectGraph(String source, String target, int weight, boolean directed){
-		
-		//Set arcs using the DirectedGraph methods
-		if(directed){
-			Vertex sourceV = dirGraph.getVertex(source);
-			Vertex targetV = dirGraph.getVertex(target);
-			Arc newArc = dirGraph.insertArc(sourceV, targetV);
-			dirGraph.setArcData(newArc, String.valueOf(weight));
-		}
+		System.out.println("Diameter BFS runs: " + engine.getBfsRuns() + " of " + csr.numVertices() + " vertices");
 		
-		//Set arcs using the UndirectedGraph methods
-		else{
-			Vertex sourceV = undirGraph.getVertex(source);
-			Vertex targetV = undirGraph.getVertex(target);
-			Arc newArc = undirGraph.insertArc(sourceV, targetV);
-			undirGraph.setArcData(newArc, String.valueOf(weight));
-		}
+		if(engine.getDiameter() > maxDistance)
+			maxDistance = engine.getDiameter();
 	}
 	
-	//Uses DFS and DFS-visit to figure out Strongly Connected Components
-	public static List<ArrayList<Vertex>> SCC(){
-		
-		//Make a new arrayList that holds all the vertices in finish time order
-		ArrayList <Vertex> finishArray = new ArrayList <Vertex> (dirGraph.numVertices());
-		
-		//The first pass of DFS
-		finishArray = DFS(finishArray);
-		
-		//Transpose all the arcs in dirGraph
-		Iterator <Arc> arcList = dirGraph.arcs();
-		Arc currArc;
-		
-		//Reverse all the arcs in the directed graph
-		while(arcList.hasNext()){
-			currArc = arcList.next();
-			
-			dirGraph.reverseDirection(currArc);
-		}
-		
-		//The second pass of DFS
-		DFS(finishArray);
-		
-		//Create a Hashtable list of vertices
-		Hashtable <String, ArrayList<Vertex>> sccList = new Hashtable <String, ArrayList<Vertex>>();
-		
-		//An Iterator for all vertices
-		Iterator <Map.Entry<String, Vertex>> vertices = dirGraph.vertices();
-		String currSCC;
-		
-		//Iterate through all the vertices 
-		while(vertices.hasNext()){
-			
-			//Get the current vertex
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			Vertex currV = hashT.getValue();
-			
-			//Get the vertex associated with this strongly connected component
-			currSCC = (String) dirGraph.getAnnotation(currV, "scc");
-			
-			//Add this vertex to these strongly connected components
-			if(sccList.containsKey(currSCC))
-				sccList.get(currSCC).add(currV);
-			
-			//If it isn't create a new array to store new strongly connected components
-			else{
-				ArrayList<Vertex> sccArray = new ArrayList<Vertex>();
-				sccArray.add(currV);
-				sccList.put(currSCC, sccArray);
-			}
-		}
+	//Approximate mean geodesic distance from the HyperANF neighbourhood function of the CSR view.
+	//The diameter is the number of iterations it took for the counters to stop changing, which can be short of the exact one
+	public static double approximateGeodesic(CsrGraph csr){
+		HyperAnf anf = new HyperAnf(csr, anfRegisters, threads);
+		anf.run();
 		
-		//Create an arraylist to store each SCC
-		List<ArrayList<Vertex>> sccListFinal = new ArrayList<ArrayList<Vertex>>();
+		System.out.println("Effective Diameter (90%): " + anf.getEffectiveDiameter(0.9));
 		
-		//Add each SCC to the final list
-		for(int i = 1; i <= scc; i++){
-			sccListFinal.add(sccList.get(Integer.toString(i)));
-			sccList.remove(Integer.toString(i));
-		}
-		
-		return sccListFinal;
-	}
-	
-	/*
-	 * Does a DFS on the dirGraph and passes an arrayList that stores finish time.
-	 * If the arraylist is empty it bases the DFS on dirGraph.vertices()
-	 * If it is not empty it bases it on the arrayList
-	 */
-	public static ArrayList <Vertex> DFS(ArrayList <Vertex> finishArray){
-		
-		scc = 0;
-		time = 0;
-		
-		//If the arrayList is empty
-		if(finishArray.isEmpty()){
-			
-			//Creates an iterator object
-			Iterator <Map.Entry<String, Vertex>> vertices = dirGraph.vertices();
-			
-			//Loops through the iterator
-			while(vertices.hasNext()){
-				Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-				Vertex currV = hashT.getValue();
-				
-				//Sets all vertices to white and null parents
-				dirGraph.setAnnotation(currV, "color", "white");
-				dirGraph.setAnnotation(currV, "parent", null);
-			}
-			
-			//Reloads the iterator object into vertices
-			vertices = dirGraph.vertices();
-			
-			//Loops through the iterator object
-			while(vertices.hasNext()){
-				Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-				Vertex currV = hashT.getValue();
-				
-				//Visits all the unvisited nodes
-				if(dirGraph.getAnnotation(currV, "color") == "white"){
-					DFSVisit(currV, finishArray);
-				}
-			}
-		}
-		
-		//If the arrayList is not empty.  The dirGraph should be transposed
-		else{
-			Vertex currV;
-			
-			//Iterates through the arrayList
-			for(int i = 0; i < finishArray.size(); i++){
-				currV = finishArray.get(i);
-				
-				//Resets all vertices to white and null parents
-				dirGraph.setAnnotation(currV, "color", "white");
-				dirGraph.setAnnotation(currV, "parent", null);
-			}
-			
-			//Iterates through the arrayList
-			for(int i = 0; i < finishArray.size(); i++){
-				currV = finishArray.get(i);
-				
-				//Visits all the unvisited nodes
-				if(dirGraph.getAnnotation(currV, "color") == "white"){
-					
-					//Each loop represents a different strongly connected component group
-					scc++;
-					DFSVisit(currV);
-				}
-			}
-		}
-		
-		return finishArray;
-	}
-	
-	/*
-	 * This visits each vertex and loads them into the finishArray marked by
-	 * their finish time
-	 */
-	public static void DFSVisit(Vertex u, ArrayList <Vertex> finishArray){		
-		time++;
-		
-		//Marks the discovery time and the color as gray
-		dirGraph.setAnnotation(u, "discovery", time);
-		dirGraph.setAnnotation(u, "color", "gray");
-		
-		//Loads an iterator object from the outAdjacencylist of the current vertex
-		Iterator <Vertex> outV = dirGraph.outAdjacentVertices(u);
-		
-		//Loops through each adjacent vertex
-		while(outV.hasNext()){
-			Vertex currV = (Vertex) outV.next();
-			
-			//If the vertex is unvisited
-			if(dirGraph.getAnnotation(currV, "color") == "white"){
-				
-				//Mark the u vertex as the parent of the adjacent vertex being looked at
-				dirGraph.setAnnotation(currV, "parent", u);
-				
-				//Look at the adjacent vertices of the current adjacent vertex being looked at
-				DFSVisit(currV, finishArray);
-			}
-		}
-		
-		//Once all adjacent vertices have been examined mark it black and load it into beginning of the arrayList
-		dirGraph.setAnnotation(u, "color", "black");
-		finishArray.add(0, u);
-		
-		//Increment time and mark it as the finish time of u Vertex
-		time++;
-		dirGraph.setAnnotation(u, "finish", time);
-		
-	}
-	
-	/*
-	 * On the second pass we are examining each adjacent vertex of the 
-	 * transposed dirGraph
-	 */
-	public static void DFSVisit(Vertex u){
-
-		//Mark it gray, and mark it in the current scc group
-		dirGraph.setAnnotation(u, "color", "gray");
-		dirGraph.setAnnotation(u, "scc", Integer.toString(scc));
-		
-		//Make a new iterator object for the outAdjacentVertices
-		Iterator <Vertex> outV = dirGraph.outAdjacentVertices(u);
-		
-		//Loop through each adjacent vertex
-		while(outV.hasNext()){
-			Vertex currV = (Vertex) outV.next();
-			
-			//If the vertex is unvisited
-			if(dirGraph.getAnnotation(currV, "color") == "white"){
-				
-				//Mark the u vertex as the parent of the adjacent vertex being looked at
-				dirGraph.setAnnotation(currV, "parent", u);
-				
-				//Look at the adjacent vertices of the current adjacent vertex being looked at
-				DFSVisit(currV);
-			}
-		}
+		if(anf.getIterations() > maxDistance)
+			maxDistance = anf.getIterations();
 		
-		//Once all adjacent vertices have been examined mark it black
-		dirGraph.setAnnotation(u, "color", "black");
+		return anf.getMeanDistance();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,584 @@
+package project3;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * This class reads and writes a binary snapshot of a directed graph.
+ * The file is a header followed by int sections and then the key and data bytes:
+ *
+ * header:       MAGIC, VERSION, number of vertices n, number of arcs m, weight type (ArcWeights.INT, FLOAT, or DOUBLE)
+ * keyOffsets:   n + 1 ints, where vertex v's key is keyBytes[keyOffsets[v]] to keyBytes[keyOffsets[v + 1] - 1]
+ * dataOffsets:  n + 1 ints, the same for the vertex data.  A null data has its offset negated minus one
+ * outOffsets:   n + 1 ints, where vertex v's out arcs are outTargets[outOffsets[v]] to outTargets[outOffsets[v + 1] - 1]
+ * outTargets:   m ints, each range sorted
+ * outWeights:   m ints, floats, or doubles by the weight type, the weight of each out arc
+ * inOffsets:    n + 1 ints
+ * inTargets:    m ints, each range sorted
+ * keyBytes:     the UTF-8 bytes of every key
+ * dataBytes:    the UTF-8 bytes of every vertex data
+ *
+ * An opened file is memory mapped and the adjacency is read straight out of the mapped buffer,
+ * so opening a converted graph doesn't parse or build anything.
+ *
+ * The methods can:
+ * write a DirectedGraph or a VNA file read by VnaReader as a binary snapshot
+ * open a snapshot and provide its keys, data, degrees, adjacent vertices, and arc weights and their type
+ * build a CsrGraph, DirectedGraph, or UndirectedGraph from a snapshot
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class GraphFile {
+
+	//"VNAB" and the format version at the start of every snapshot
+	public static final int MAGIC = 0x564E4142;
+	public static final int VERSION = 2;
+
+	//The number of ints in the header
+	private static final int HEADER = 5;
+
+	private final int numVertices;
+	private final int numArcs;
+	private final int weightType;
+
+	//Views of each section of the mapped file
+	private final IntBuffer keyOffsets;
+	private final IntBuffer dataOffsets;
+	private final IntBuffer outOffsets;
+	private final IntBuffer outTargets;
+	private final ByteBuffer outWeights;
+	private final IntBuffer inOffsets;
+	private final IntBuffer inTargets;
+	private final ByteBuffer keyBytes;
+	private final ByteBuffer dataBytes;
+
+	//The key to ID dictionary, made the first time a key is looked up
+	private HashMap <String, Integer> ids = null;
+
+	private GraphFile(MappedByteBuffer buffer) throws IOException {
+		if(buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a graph snapshot");
+
+		if(buffer.getInt(4) != VERSION)
+			throw new IOException("Unknown graph snapshot version " + buffer.getInt(4));
+
+		numVertices = buffer.getInt(8);
+		numArcs = buffer.getInt(12);
+		weightType = buffer.getInt(16);
+
+		if(weightType != ArcWeights.INT && weightType != ArcWeights.FLOAT && weightType != ArcWeights.DOUBLE)
+			throw new IOException("Unknown weight type " + weightType);
+
+		//Cut the int sections out of the buffer one after another
+		int pos = HEADER * 4;
+		keyOffsets = ints(buffer, pos, numVertices + 1);
+		pos += (numVertices + 1) * 4;
+		dataOffsets = ints(buffer, pos, numVertices + 1);
+		pos += (numVertices + 1) * 4;
+		outOffsets = ints(buffer, pos, numVertices + 1);
+		pos += (numVertices + 1) * 4;
+		outTargets = ints(buffer, pos, numArcs);
+		pos += numArcs * 4;
+		outWeights = bytes(buffer, pos, numArcs * weightSize(weightType));
+		pos += numArcs * weightSize(weightType);
+		inOffsets = ints(buffer, pos, numVertices + 1);
+		pos += (numVertices + 1) * 4;
+		inTargets = ints(buffer, pos, numArcs);
+		pos += numArcs * 4;
+
+		int keyLength = keyOffsets.get(numVertices);
+		keyBytes = bytes(buffer, pos, keyLength);
+		pos += keyLength;
+		dataBytes = bytes(buffer, pos, buffer.capacity() - pos);
+	}
+
+	/*
+	 * Memory maps a snapshot file
+	 */
+	public static GraphFile open(String filename) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+
+		try{
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+
+			if(size > Integer.MAX_VALUE)
+				throw new IOException(filename + " is too big to map (" + size + " bytes)");
+
+			return new GraphFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+
+		finally{
+			file.close();
+		}
+	}
+
+	/*
+	 * Returns true if the file starts with the snapshot MAGIC number
+	 */
+	public static boolean isGraphFile(String filename) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(filename));
+
+		try{
+			return in.available() >= 4 && in.readInt() == MAGIC;
+		}
+
+		finally{
+			in.close();
+		}
+	}
+
+	/*
+	 * Writes every vertex and arc of a DirectedGraph as a snapshot.  The weights are written
+	 * as the graph's weight type, so float and double weights come back the same
+	 */
+	public static void write(DirectedGraph graph, String filename) throws IOException {
+		int n = graph.numVertices();
+		int m = graph.numArcs();
+		String[] keys = new String[n];
+		String[] data = new String[n];
+		HashMap <Vertex, Integer> vertexIds = new HashMap <Vertex, Integer>(n * 2);
+
+		Iterator <Map.Entry<String, Vertex>> vertices = graph.vertices();
+		int id = 0;
+
+		while(vertices.hasNext()){
+			Vertex currV = vertices.next().getValue();
+			keys[id] = currV.getKey();
+			data[id] = currV.getData();
+			vertexIds.put(currV, id);
+			id++;
+		}
+
+		int[] sources = new int[m];
+		int[] targets = new int[m];
+		ArcWeights weights = new ArcWeights(graph.getWeightType());
+		weights.ensureCapacity(m);
+		Iterator <Arc> arcs = graph.arcs();
+		int count = 0;
+
+		while(arcs.hasNext()){
+			Arc currArc = arcs.next();
+			Integer source = vertexIds.get(currArc.getSource());
+			Integer target = vertexIds.get(currArc.getTarget());
+
+			//Skip arcs to vertices that were removed
+			if(source == null || target == null)
+				continue;
+
+			sources[count] = source;
+			targets[count] = target;
+			weights.set(count, graph.getWeight(currArc));
+			count++;
+		}
+
+		write(keys, data, n, sources, targets, weights, count, filename);
+	}
+
+	/*
+	 * Writes the vertices and ties read from a VNA file as a snapshot, with the weight type they were read as
+	 */
+	public static void write(VnaReader reader, String filename) throws IOException {
+		int n = reader.numVertices();
+		int m = reader.numTies();
+		String[] keys = new String[n];
+		String[] data = new String[n];
+		int[] sources = new int[m];
+		int[] targets = new int[m];
+		ArcWeights weights = new ArcWeights(reader.getWeightType());
+		weights.ensureCapacity(m);
+
+		for(int i = 0; i < n; i++){
+			keys[i] = reader.getKey(i);
+			data[i] = reader.getData(i);
+		}
+
+		for(int i = 0; i < m; i++){
+			sources[i] = reader.getSource(i);
+			targets[i] = reader.getTarget(i);
+			weights.set(i, reader.getDoubleWeight(i));
+		}
+
+		write(keys, data, n, sources, targets, weights, m, filename);
+	}
+
+	/*
+	 * Sorts the arcs into CSR order and writes the snapshot with the type of the weights column
+	 */
+	private static void write(String[] keys, String[] data, int n, int[] sources, int[] targets, ArcWeights weights, int m, String filename) throws IOException {
+		int[] outOffsets = new int[n + 1];
+		int[] inOffsets = new int[n + 1];
+
+		for(int i = 0; i < m; i++){
+			outOffsets[sources[i] + 1]++;
+			inOffsets[targets[i] + 1]++;
+		}
+
+		for(int v = 0; v < n; v++){
+			outOffsets[v + 1] += outOffsets[v];
+			inOffsets[v + 1] += inOffsets[v];
+		}
+
+		//Put each arc in its source's range, packed with its arc number so its weight can be found after sorting
+		long[] out = new long[m];
+		int[] in = new int[m];
+		int[] outPos = outOffsets.clone();
+		int[] inPos = inOffsets.clone();
+
+		for(int i = 0; i < m; i++){
+			out[outPos[sources[i]]++] = ((long) targets[i] << 32) | i;
+			in[inPos[targets[i]]++] = sources[i];
+		}
+
+		for(int v = 0; v < n; v++){
+			Arrays.sort(out, outOffsets[v], outOffsets[v + 1]);
+			Arrays.sort(in, inOffsets[v], inOffsets[v + 1]);
+		}
+
+		//Turn the keys and data into bytes and offsets
+		byte[][] keyBytes = new byte[n][];
+		byte[][] dataBytes = new byte[n][];
+		int[] keyOffsets = new int[n + 1];
+		int[] dataOffsets = new int[n + 1];
+		int dataLength = 0;
+
+		for(int v = 0; v < n; v++){
+			keyBytes[v] = keys[v].getBytes(StandardCharsets.UTF_8);
+			keyOffsets[v + 1] = keyOffsets[v] + keyBytes[v].length;
+
+			dataOffsets[v] = dataLength;
+
+			if(data[v] == null)
+				dataOffsets[v] = -dataLength - 1;
+
+			else{
+				dataBytes[v] = data[v].getBytes(StandardCharsets.UTF_8);
+				dataLength += dataBytes[v].length;
+			}
+		}
+
+		dataOffsets[n] = dataLength;
+
+		DataOutputStream file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+
+		try{
+			file.writeInt(MAGIC);
+			file.writeInt(VERSION);
+			file.writeInt(n);
+			file.writeInt(m);
+			file.writeInt(weights.getType());
+
+			writeInts(file, keyOffsets, n + 1);
+			writeInts(file, dataOffsets, n + 1);
+			writeInts(file, outOffsets, n + 1);
+
+			for(int i = 0; i < m; i++)
+				file.writeInt((int) (out[i] >>> 32));
+
+			for(int i = 0; i < m; i++){
+				int arc = (int) out[i];
+
+				if(weights.getType() == ArcWeights.INT)
+					file.writeInt(weights.getInt(arc));
+
+				else if(weights.getType() == ArcWeights.FLOAT)
+					file.writeFloat((float) weights.get(arc));
+
+				else
+					file.writeDouble(weights.get(arc));
+			}
+
+			writeInts(file, inOffsets, n + 1);
+			writeInts(file, in, m);
+
+			for(int v = 0; v < n; v++)
+				file.write(keyBytes[v]);
+
+			for(int v = 0; v < n; v++){
+				if(dataBytes[v] != null)
+					file.write(dataBytes[v]);
+			}
+		}
+
+		finally{
+			file.close();
+		}
+	}
+
+	/*
+	 * Returns the total number of vertices in the graph
+	 */
+	public int numVertices(){
+		return numVertices;
+	}
+
+	/*
+	 * Returns the total number of arcs in the graph
+	 */
+	public int numArcs(){
+		return numArcs;
+	}
+
+	/*
+	 * Returns the type of the arc weights, ArcWeights.INT, FLOAT, or DOUBLE
+	 */
+	public int getWeightType(){
+		return weightType;
+	}
+
+	/*
+	 * Returns the key of the vertex with a particular ID
+	 */
+	public String getKey(int v){
+		return string(keyBytes, keyOffsets.get(v), keyOffsets.get(v + 1));
+	}
+
+	/*
+	 * Returns the data of the vertex with a particular ID, or null if it has none
+	 */
+	public String getData(int v){
+		int start = dataOffsets.get(v);
+
+		if(start < 0)
+			return null;
+
+		//The next data that isn't null marks where this one ends
+		int end = dataOffsets.get(v + 1);
+
+		if(end < 0)
+			end = -end - 1;
+
+		return string(dataBytes, start, end);
+	}
+
+	/*
+	 * Returns the ID of the vertex with a particular key or -1 if there is none
+	 */
+	public int getId(String key){
+		if(ids == null){
+			ids = new HashMap <String, Integer>(numVertices * 2);
+
+			for(int v = 0; v < numVertices; v++)
+				ids.put(getKey(v), v);
+		}
+
+		Integer id = ids.get(key);
+
+		if(id == null)
+			return -1;
+
+		return id;
+	}
+
+	/*
+	 * Returns the number of arcs outgoing from a vertex
+	 */
+	public int outDegree(int v){
+		return outOffsets.get(v + 1) - outOffsets.get(v);
+	}
+
+	/*
+	 * Returns the number of arcs incoming to a vertex
+	 */
+	public int inDegree(int v){
+		return inOffsets.get(v + 1) - inOffsets.get(v);
+	}
+
+	/*
+	 * Returns the ith out adjacent vertex of v
+	 */
+	public int outNeighbor(int v, int i){
+		return outTargets.get(outOffsets.get(v) + i);
+	}
+
+	/*
+	 * Returns the weight of the arc to the ith out adjacent vertex of v
+	 */
+	public double outWeight(int v, int i){
+		return weight(outOffsets.get(v) + i);
+	}
+
+	/*
+	 * Returns the weight of the arc to the ith out adjacent vertex of v as an int.  A float or double weight is truncated
+	 */
+	public int outIntWeight(int v, int i){
+		return (int) outWeight(v, i);
+	}
+
+	/*
+	 * Returns the weight of the arc at position i of the outTargets section
+	 */
+	private double weight(int i){
+		if(weightType == ArcWeights.INT)
+			return outWeights.getInt(i * 4);
+
+		if(weightType == ArcWeights.FLOAT)
+			return outWeights.getFloat(i * 4);
+
+		return outWeights.getDouble(i * 8);
+	}
+
+	/*
+	 * Returns the ith in adjacent vertex of v
+	 */
+	public int inNeighbor(int v, int i){
+		return inTargets.get(inOffsets.get(v) + i);
+	}
+
+	/*
+	 * Copies the snapshot into a CsrGraph for the traversal engines
+	 */
+	public CsrGraph toCsr(){
+		Vertex[] vertexList = new Vertex[numVertices];
+		HashMap <String, Integer> keyIds = new HashMap <String, Integer>(numVertices * 2);
+
+		for(int v = 0; v < numVertices; v++){
+			vertexList[v] = new Vertex(getKey(v));
+			vertexList[v].setData(getData(v));
+			keyIds.put(vertexList[v].getKey(), v);
+		}
+
+		return new CsrGraph(vertexList, keyIds, copy(outOffsets), copy(outTargets), copy(inOffsets), copy(inTargets));
+	}
+
+	/*
+	 * Builds a DirectedGraph with every vertex and arc in the snapshot.  The arcs are already in order of their
+	 * source, so they go straight into a graph made at its final size
+	 */
+	public DirectedGraph toDirectedGraph(){
+		DirectedGraph graph = new DirectedGraph(weightType, numVertices, numArcs);
+		Vertex[] vertexList = new Vertex[numVertices];
+
+		for(int v = 0; v < numVertices; v++){
+			vertexList[v] = graph.insertVertex(getKey(v));
+			graph.setVertexData(vertexList[v], getData(v));
+		}
+
+		int[][] arcs = arcArrays();
+		graph.insertArcs(vertexList, arcs[0], arcs[1], weights(), null, numArcs);
+
+		return graph;
+	}
+
+	/*
+	 * Builds an UndirectedGraph with every vertex in the snapshot and an arc for every directed arc
+	 */
+	public UndirectedGraph toUndirectedGraph(){
+		UndirectedGraph graph = new UndirectedGraph(weightType, numVertices, numArcs);
+		Vertex[] vertexList = new Vertex[numVertices];
+
+		for(int v = 0; v < numVertices; v++){
+			vertexList[v] = graph.insertVertex(getKey(v));
+			graph.setVertexData(vertexList[v], getData(v));
+		}
+
+		int[][] arcs = arcArrays();
+		graph.insertArcs(vertexList, arcs[0], arcs[1], weights(), null, numArcs);
+
+		return graph;
+	}
+
+	/*
+	 * Returns the source and target of every arc in CSR order
+	 */
+	private int[][] arcArrays(){
+		int[] sources = new int[numArcs];
+		int[] targets = copy(outTargets);
+
+		for(int v = 0; v < numVertices; v++){
+			for(int i = outOffsets.get(v); i < outOffsets.get(v + 1); i++)
+				sources[i] = v;
+		}
+
+		return new int[][] {sources, targets};
+	}
+
+	/*
+	 * Copies the weight of every arc in CSR order into a column of the snapshot's weight type
+	 */
+	private ArcWeights weights(){
+		if(weightType == ArcWeights.INT)
+			return new ArcWeights(copy(outWeights.asIntBuffer()));
+
+		ArcWeights weights = new ArcWeights(weightType);
+		weights.ensureCapacity(numArcs);
+
+		for(int i = 0; i < numArcs; i++)
+			weights.set(i, weight(i));
+
+		return weights;
+	}
+
+	/*
+	 * Returns the number of bytes each weight of a type takes
+	 */
+	private static int weightSize(int type){
+		return type == ArcWeights.DOUBLE ? 8 : 4;
+	}
+
+	/*
+	 * Returns a view of count ints starting at byte pos of the buffer
+	 */
+	private static IntBuffer ints(ByteBuffer buffer, int pos, int count){
+		ByteBuffer section = buffer.duplicate();
+		section.position(pos);
+		section.limit(pos + count * 4);
+
+		return section.slice().asIntBuffer();
+	}
+
+	/*
+	 * Returns a view of count bytes starting at byte pos of the buffer
+	 */
+	private static ByteBuffer bytes(ByteBuffer buffer, int pos, int count){
+		ByteBuffer section = buffer.duplicate();
+		section.position(pos);
+		section.limit(pos + count);
+
+		return section.slice();
+	}
+
+	/*
+	 * Copies an int section out of the mapped buffer
+	 */
+	private static int[] copy(IntBuffer section){
+		int[] array = new int[section.capacity()];
+		section.duplicate().get(array);
+
+		return array;
+	}
+
+	/*
+	 * Makes a String out of the bytes from start to end of a section
+	 */
+	private static String string(ByteBuffer section, int start, int end){
+		byte[] bytes = new byte[end - start];
+
+		for(int i = 0; i < bytes.length; i++)
+			bytes[i] = section.get(start + i);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * Writes the first count ints of an array
+	 */
+	private static void writeInts(DataOutputStream file, int[] values, int count) throws IOException {
+		for(int i = 0; i < count; i++)
+			file.writeInt(values[i]);
+	}
+}
@@ -0,0 +1,215 @@
+package project3;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a read-only copy of the vertices and arcs of a DirectedGraph at one moment, made by
+ * DirectedGraph.snapshot() in constant time.  It shares the graph's copy-on-write chunks (see VersionedAdjacency),
+ * so it never changes while the graph goes on inserting and removing, and any number of threads can
+ * read it at once.  The weights and annotations are not part of the copy.
+ * A snapshot holds on to the chunks it was made from, so it should be let go of once it is done with.
+ *
+ * The methods can:
+ * provide the amount of arcs and vertices, and the vertex of an int ID
+ * provide in and out degrees, and loop over the adjacent vertices of a vertex ID by index or with a callback
+ * check whether an arc exists between two IDs
+ * freeze the copy into a CSR view for the engines
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class GraphSnapshot {
+
+	private final int version;
+	private final VersionedAdjacency.Chunk[] chunks;
+	private final int vertexBound;
+	private final int numVertices;
+	private final int numArcs;
+
+	//Only VersionedAdjacency makes snapshots
+	GraphSnapshot(int version, VersionedAdjacency.Chunk[] chunks, int vertexBound, int numVertices, int numArcs){
+		this.version = version;
+		this.chunks = chunks;
+		this.vertexBound = vertexBound;
+		this.numVertices = numVertices;
+		this.numArcs = numArcs;
+	}
+
+	/*
+	 * Returns the chunk of the vertex with ID v, or null if no vertex of the chunk was ever set
+	 */
+	private VersionedAdjacency.Chunk chunk(int v){
+		int c = v >>> VersionedAdjacency.CHUNK_BITS;
+
+		return c < chunks.length ? chunks[c] : null;
+	}
+
+	/*
+	 * Returns the version of the graph this is a copy of.  Each snapshot of a graph has a higher version than the last
+	 */
+	public int getVersion(){
+		return version;
+	}
+
+	/*
+	 * Returns the total number of vertices
+	 */
+	public int numVertices(){
+		return numVertices;
+	}
+
+	/*
+	 * Returns the total number of arcs
+	 */
+	public int numArcs(){
+		return numArcs;
+	}
+
+	/*
+	 * Returns one more than the largest vertex ID, which is the size an array indexed by vertex ID needs
+	 */
+	public int vertexIdBound(){
+		return vertexBound;
+	}
+
+	/*
+	 * Returns the vertex with a particular int ID, or null if it was removed
+	 */
+	public Vertex getVertex(int id){
+		VersionedAdjacency.Chunk chunk = chunk(id);
+
+		return chunk == null ? null : chunk.vertices[id & VersionedAdjacency.CHUNK_MASK];
+	}
+
+	/*
+	 * Returns the number of arcs outgoing from the vertex with ID v
+	 */
+	public int outDegree(int v){
+		VersionedAdjacency.Chunk chunk = chunk(v);
+
+		return chunk == null ? 0 : chunk.outSize[v & VersionedAdjacency.CHUNK_MASK];
+	}
+
+	/*
+	 * Returns the number of arcs incoming to the vertex with ID v
+	 */
+	public int inDegree(int v){
+		VersionedAdjacency.Chunk chunk = chunk(v);
+
+		return chunk == null ? 0 : chunk.inSize[v & VersionedAdjacency.CHUNK_MASK];
+	}
+
+	/*
+	 * Returns the ID of the i'th out adjacent vertex of the vertex with ID v
+	 */
+	public int outNeighbor(int v, int i){
+		return chunk(v).out[v & VersionedAdjacency.CHUNK_MASK][i];
+	}
+
+	/*
+	 * Returns the ID of the i'th in adjacent vertex of the vertex with ID v
+	 */
+	public int inNeighbor(int v, int i){
+		return chunk(v).in[v & VersionedAdjacency.CHUNK_MASK][i];
+	}
+
+	/*
+	 * Gives the ID of every out adjacent vertex of the vertex with ID v to action
+	 */
+	public void forEachOutNeighbor(int v, IntConsumer action){
+		int degree = outDegree(v);
+
+		if(degree > 0){
+			int[] list = chunk(v).out[v & VersionedAdjacency.CHUNK_MASK];
+
+			for(int i = 0; i < degree; i++)
+				action.accept(list[i]);
+		}
+	}
+
+	/*
+	 * Gives the ID of every in adjacent vertex of the vertex with ID v to action
+	 */
+	public void forEachInNeighbor(int v, IntConsumer action){
+		int degree = inDegree(v);
+
+		if(degree > 0){
+			int[] list = chunk(v).in[v & VersionedAdjacency.CHUNK_MASK];
+
+			for(int i = 0; i < degree; i++)
+				action.accept(list[i]);
+		}
+	}
+
+	/*
+	 * Returns true if there is an arc from the vertex with ID source to the vertex with ID target.
+	 * The shorter of the source's out list and the target's in list is searched
+	 */
+	public boolean hasArc(int source, int target){
+		int outDeg = outDegree(source);
+		int inDeg = inDegree(target);
+
+		if(outDeg <= inDeg){
+			for(int i = 0; i < outDeg; i++){
+				if(outNeighbor(source, i) == target)
+					return true;
+			}
+		}
+
+		else{
+			for(int i = 0; i < inDeg; i++){
+				if(inNeighbor(target, i) == source)
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/*
+	 * Builds a read-only CSR view of the copy, so the engines can run on it while the graph changes
+	 */
+	public CsrGraph toCsr(){
+		int[] denseIds = new int[vertexBound];
+		ArrayList <Vertex> vertexList = new ArrayList <Vertex>(numVertices);
+		HashMap <String, Integer> ids = new HashMap <String, Integer>(numVertices * 2);
+
+		//Give every vertex a dense ID
+		for(int v = 0; v < vertexBound; v++){
+			Vertex currV = getVertex(v);
+
+			if(currV != null){
+				denseIds[v] = vertexList.size();
+				ids.put(currV.getKey(), vertexList.size());
+				vertexList.add(currV);
+			}
+		}
+
+		int n = vertexList.size();
+		int[] outOffsets = new int[n + 1];
+		int[] inOffsets = new int[n + 1];
+
+		//Count the degrees of each vertex, then turn the counts into offsets
+		for(int i = 0; i < n; i++){
+			outOffsets[i + 1] = outOffsets[i] + outDegree(vertexList.get(i).getId());
+			inOffsets[i + 1] = inOffsets[i] + inDegree(vertexList.get(i).getId());
+		}
+
+		int[] outTargets = new int[outOffsets[n]];
+		int[] inTargets = new int[inOffsets[n]];
+
+		//Copy the adjacency lists into the flat arrays
+		for(int i = 0; i < n; i++){
+			int v = vertexList.get(i).getId();
+
+			for(int j = 0; j < outOffsets[i + 1] - outOffsets[i]; j++)
+				outTargets[outOffsets[i] + j] = denseIds[outNeighbor(v, j)];
+
+			for(int j = 0; j < inOffsets[i + 1] - inOffsets[i]; j++)
+				inTargets[inOffsets[i] + j] = denseIds[inNeighbor(v, j)];
+		}
+
+		return new CsrGraph(vertexList.toArray(new Vertex[n]), ids, outOffsets, outTargets, inOffsets, inTargets);
+	}
+}
@@ -0,0 +1,199 @@
+package project3;
+import java.util.Arrays;
+
+/*
+ * This class does a direction-optimizing breadth first search on a CsrGraph.
+ * A top-down level expands the out arcs of every frontier vertex.
+ * A bottom-up level has every unvisited vertex scan its in arcs for a frontier vertex
+ * and stop at the first one it finds, which is cheaper once the frontier covers most of the graph.
+ * The search switches to bottom-up when the frontier's out arcs outnumber the unvisited
+ * vertices' in arcs divided by ALPHA, and back to top-down once the frontier is smaller than
+ * the number of vertices divided by BETA.
+ *
+ * One object keeps its arrays between searches, so it should only be used by one thread.
+ *
+ * The methods can:
+ * run a search from a source vertex ID
+ * provide the distances, the sum of distances, the number of vertices reached, and the farthest distance
+ * provide how many levels ran top-down and how many ran bottom-up
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class HybridBFS {
+
+	//The frontier size heuristics for switching directions
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	private final CsrGraph csr;
+
+	//-1 marks an unvisited vertex.  The queue holds every visited vertex in the order it was reached
+	private final int[] distance;
+	private final int[] queue;
+	private int tail = 0;
+
+	//The results of the last search
+	private long totalDistance = 0;
+	private int farthest = 0;
+	private int topDownLevels = 0;
+	private int bottomUpLevels = 0;
+
+	public HybridBFS(CsrGraph csr){
+		this.csr = csr;
+		distance = new int[csr.numVertices()];
+		queue = new int[csr.numVertices()];
+
+		Arrays.fill(distance, -1);
+	}
+
+	/*
+	 * Searches from the vertex with ID s, switching directions between levels
+	 */
+	public void run(int s){
+		int n = csr.numVertices();
+
+		//Reset only the vertices the last search reached
+		for(int i = 0; i < tail; i++)
+			distance[queue[i]] = -1;
+
+		totalDistance = 0;
+		farthest = 0;
+		topDownLevels = 0;
+		bottomUpLevels = 0;
+
+		tail = 0;
+		distance[s] = 0;
+		queue[tail++] = s;
+
+		//The frontier is queue[levelStart] to queue[tail - 1]
+		int levelStart = 0;
+		int level = 0;
+		boolean bottomUp = false;
+
+		//The in arcs left to check from unvisited vertices
+		long unvisitedArcs = csr.numArcs() - csr.inDegree(s);
+
+		while(levelStart < tail){
+			int frontierSize = tail - levelStart;
+
+			//Pick the direction for this level from the size of the frontier
+			if(!bottomUp){
+				long frontierArcs = 0;
+
+				for(int i = levelStart; i < tail; i++)
+					frontierArcs += csr.outDegree(queue[i]);
+
+				bottomUp = frontierArcs > unvisitedArcs / ALPHA;
+			}
+
+			else
+				bottomUp = frontierSize >= n / BETA;
+
+			int levelEnd = tail;
+
+			if(bottomUp){
+				bottomUpStep(level);
+				bottomUpLevels++;
+			}
+
+			else{
+				topDownStep(levelStart, levelEnd);
+				topDownLevels++;
+			}
+
+			//Add up the vertices that were just reached
+			for(int i = levelEnd; i < tail; i++){
+				unvisitedArcs -= csr.inDegree(queue[i]);
+				totalDistance += level + 1;
+			}
+
+			if(tail > levelEnd)
+				farthest = level + 1;
+
+			levelStart = levelEnd;
+			level++;
+		}
+	}
+
+	/*
+	 * Expands the out arcs of every vertex in the frontier
+	 */
+	private void topDownStep(int levelStart, int levelEnd){
+		for(int q = levelStart; q < levelEnd; q++){
+			int currV = queue[q];
+			int nextDistance = distance[currV] + 1;
+
+			for(int i = csr.outOffsets[currV]; i < csr.outOffsets[currV + 1]; i++){
+				int adjV = csr.outTargets[i];
+
+				if(distance[adjV] == -1){
+					distance[adjV] = nextDistance;
+					queue[tail++] = adjV;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Has every unvisited vertex look for a parent on the frontier among its in adjacent vertices
+	 */
+	private void bottomUpStep(int level){
+		for(int v = 0; v < csr.numVertices(); v++){
+			if(distance[v] != -1)
+				continue;
+
+			for(int i = csr.inOffsets[v]; i < csr.inOffsets[v + 1]; i++){
+
+				//A vertex is on the frontier if its distance is the current level
+				if(distance[csr.inTargets[i]] == level){
+					distance[v] = level + 1;
+					queue[tail++] = v;
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the distance of a vertex from the last source, or -1 if it was not reached
+	 */
+	public int getDistance(int v){
+		return distance[v];
+	}
+
+	/*
+	 * Returns the sum of the distances to every vertex reached by the last search
+	 */
+	public long getTotalDistance(){
+		return totalDistance;
+	}
+
+	/*
+	 * Returns the number of vertices reached by the last search, not counting the source
+	 */
+	public int getReached(){
+		return tail - 1;
+	}
+
+	/*
+	 * Returns the distance of the farthest vertex reached by the last search
+	 */
+	public int getFarthest(){
+		return farthest;
+	}
+
+	/*
+	 * Returns the number of levels of the last search that ran top-down
+	 */
+	public int getTopDownLevels(){
+		return topDownLevels;
+	}
+
+	/*
+	 * Returns the number of levels of the last search that ran bottom-up
+	 */
+	public int getBottomUpLevels(){
+		return bottomUpLevels;
+	}
+}
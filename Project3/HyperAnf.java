@@ -0,0 +1,296 @@
+package project3;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * This class approximates the neighbourhood function of a CsrGraph in the way of HyperANF.
+ * Every vertex keeps a HyperLogLog counter of the vertices it can reach.  The counters start
+ * with only the vertex itself, and each iteration sets a vertex's counter to the union of its own counter
+ * and the counters of its out adjacent vertices, so after t iterations it counts the vertices within distance t.
+ * The sum of the counters after iteration t estimates N(t), the number of pairs within distance t.
+ * The iterations stop once no counter changes.  That number of iterations is a lower bound on the diameter,
+ * since a vertex that is only reached late may not raise any register of the counters it joins.
+ *
+ * A counter is a number of byte registers, which has to be a power of 2 of at least 16.
+ * The memory used is 2 * registers bytes per vertex, and the relative error of each counter
+ * is about 1.04 / sqrt(registers).  The registers of all the vertices have to fit in one array.
+ *
+ * The methods can:
+ * run the iterations on a given number of threads
+ * provide the neighbourhood function, the mean distance, the effective diameter, and the number of iterations
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class HyperAnf {
+
+	//Ranges with fewer vertices than this are not split any further
+	private static final int MIN_VERTICES = 1024;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The number of registers in a counter, and the number of bits of the hash that pick a register
+	private final int registers;
+	private final int indexBits;
+
+	//The registers of vertex v are at v * registers up to v * registers + registers - 1
+	private byte[] current;
+	private byte[] next;
+
+	//The estimate of N(t) after each iteration t, starting with N(0)
+	private ArrayList <Double> neighbourhood = new ArrayList <Double>();
+
+	public HyperAnf(CsrGraph csr, int registers, int threads){
+		if(registers < 16 || Integer.bitCount(registers) != 1)
+			throw new IllegalArgumentException("The number of registers must be a power of 2 of at least 16: " + registers);
+
+		//The counters of every vertex are in one array, so they have to fit in one
+		long size = (long) csr.numVertices() * registers;
+
+		if(size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException(csr.numVertices() + " vertices with " + registers + " registers need "
+					+ size + " bytes of counters, more than one array can hold.  Use fewer registers");
+
+		this.csr = csr;
+		this.registers = registers;
+		this.indexBits = Integer.numberOfTrailingZeros(registers);
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Runs the iterations until no counter changes
+	 */
+	public void run(){
+		int n = csr.numVertices();
+		current = new byte[n * registers];
+		next = new byte[n * registers];
+		neighbourhood.clear();
+
+		//Each counter starts with only its own vertex
+		for(int v = 0; v < n; v++)
+			add(current, v * registers, v);
+
+		neighbourhood.add(sum(current, 0, n));
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			while(true){
+				Step step = pool.invoke(new StepRange(0, n));
+
+				if(!step.changed)
+					break;
+
+				neighbourhood.add(step.total);
+
+				//The new counters are the current counters of the next iteration
+				byte[] swap = current;
+				current = next;
+				next = swap;
+			}
+		}
+
+		finally{
+			pool.shutdown();
+		}
+
+		current = null;
+		next = null;
+	}
+
+	/*
+	 * Adds a vertex ID to the counter starting at base
+	 */
+	private void add(byte[] counters, int base, int v){
+		long hash = mix(v);
+		int index = (int) (hash >>> (64 - indexBits));
+
+		//The rank is the position of the first 1 bit after the index bits
+		long rest = hash << indexBits;
+		int rank = rest == 0 ? 64 - indexBits + 1 : Long.numberOfLeadingZeros(rest) + 1;
+
+		if(rank > counters[base + index])
+			counters[base + index] = (byte) rank;
+	}
+
+	/*
+	 * Spreads the bits of an ID over a 64 bit hash (the finalizer of MurmurHash3)
+	 */
+	private static long mix(long x){
+		x = (x + 1) * 0x9E3779B97F4A7C15L;
+		x ^= x >>> 33;
+		x *= 0xFF51AFD7ED558CCDL;
+		x ^= x >>> 33;
+		x *= 0xC4CEB9FE1A85EC53L;
+		x ^= x >>> 33;
+
+		return x;
+	}
+
+	/*
+	 * Returns the estimated number of vertices in the counter of vertex v
+	 */
+	private double estimate(byte[] counters, int v){
+		int base = v * registers;
+		double sum = 0;
+		int zeros = 0;
+
+		for(int j = 0; j < registers; j++){
+			sum += 1.0 / (1L << counters[base + j]);
+
+			if(counters[base + j] == 0)
+				zeros++;
+		}
+
+		double alpha;
+
+		if(registers == 16)
+			alpha = 0.673;
+
+		else if(registers == 32)
+			alpha = 0.697;
+
+		else if(registers == 64)
+			alpha = 0.709;
+
+		else
+			alpha = 0.7213 / (1 + 1.079 / registers);
+
+		double raw = alpha * registers * registers / sum;
+
+		//Small counts are better estimated from the number of empty registers
+		if(raw <= 2.5 * registers && zeros > 0)
+			return registers * Math.log((double) registers / zeros);
+
+		return raw;
+	}
+
+	/*
+	 * Returns the sum of the estimates of the counters of the vertices from up to to
+	 */
+	private double sum(byte[] counters, int from, int to){
+		double total = 0;
+
+		for(int v = from; v < to; v++)
+			total += estimate(counters, v);
+
+		return total;
+	}
+
+	/*
+	 * Returns the estimated number of pairs within distance t, counting each vertex with itself
+	 */
+	public double getNeighbourhood(int t){
+		if(t >= neighbourhood.size())
+			t = neighbourhood.size() - 1;
+
+		return neighbourhood.get(t);
+	}
+
+	/*
+	 * Returns the number of iterations that changed a counter, which is a lower bound on the diameter
+	 */
+	public int getIterations(){
+		return neighbourhood.size() - 1;
+	}
+
+	/*
+	 * Returns the estimated average distance between reachable pairs, not counting a vertex with itself
+	 */
+	public double getMeanDistance(){
+		double pairs = 0;
+		double distance = 0;
+
+		for(int t = 1; t < neighbourhood.size(); t++){
+			double atT = neighbourhood.get(t) - neighbourhood.get(t - 1);
+			distance += t * atT;
+			pairs += atT;
+		}
+
+		if(pairs <= 0)
+			return 0;
+
+		return distance / pairs;
+	}
+
+	/*
+	 * Returns the smallest distance, interpolated between iterations, that a fraction of the reachable pairs are within
+	 */
+	public double getEffectiveDiameter(double fraction){
+		int last = neighbourhood.size() - 1;
+		double base = neighbourhood.get(0);
+		double target = fraction * (neighbourhood.get(last) - base);
+
+		for(int t = 1; t <= last; t++){
+			double within = neighbourhood.get(t) - base;
+
+			if(within >= target){
+				double before = neighbourhood.get(t - 1) - base;
+				return t - 1 + (target - before) / (within - before);
+			}
+		}
+
+		return last;
+	}
+
+	/*
+	 * The sum of the new counters of a range of vertices and whether any of them changed
+	 */
+	private static class Step {
+		double total = 0;
+		boolean changed = false;
+	}
+
+	/*
+	 * A range of vertices that splits in half until it is small enough to update directly
+	 */
+	private class StepRange extends RecursiveTask <Step> {
+		private final int from;
+		private final int to;
+
+		StepRange(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Step compute(){
+			if(to - from <= MIN_VERTICES){
+				Step step = new Step();
+
+				for(int v = from; v < to; v++){
+					int base = v * registers;
+					System.arraycopy(current, base, next, base, registers);
+
+					//The union of two counters keeps the bigger value of each register
+					for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1]; i++){
+						int adjBase = csr.outTargets[i] * registers;
+
+						for(int j = 0; j < registers; j++){
+							if(current[adjBase + j] > next[base + j]){
+								next[base + j] = current[adjBase + j];
+								step.changed = true;
+							}
+						}
+					}
+				}
+
+				step.total = sum(next, from, to);
+				return step;
+			}
+
+			int mid = (from + to) >>> 1;
+			StepRange left = new StepRange(from, mid);
+			left.fork();
+
+			Step step = new StepRange(mid, to).compute();
+			Step other = left.join();
+
+			step.total += other.total;
+			step.changed |= other.changed;
+
+			return step;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package project3;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * This class times how fast arcs and vertices can be removed from a DirectedGraph.
+ * It reads a .vna file (ti-full.vna unless another file is given), removes a random
+ * fraction of its arcs one at a time, then removes a random fraction of its vertices,
+ * and checks that the arc list and both adjacency lists still agree afterwards.
+ *
+ * Usage:  java project3.MutationBenchmark [file] [fraction] [seed]
+ *
+ * The methods can:
+ * remove a random sample of arcs and vertices and print how long each took
+ * check the arc count against the in and out adjacency lists
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class MutationBenchmark {
+
+	public static void main(String[] args){
+		String fname = args.length > 0 ? args[0] : "ti-full.vna";
+		double fraction = args.length > 1 ? Double.parseDouble(args[1]) : 0.1;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 311;
+
+		try{
+			DirectedGraph graph = VnaReader.read(fname).toDirectedGraph();
+			Random random = new Random(seed);
+
+			System.out.println("Vertices: " + graph.numVertices() + "  Arcs: " + graph.numArcs());
+
+			//Pick the arcs to remove before removing any, so the picks don't depend on the swaps
+			ArrayList <Arc> arcList = new ArrayList <Arc>();
+			java.util.Iterator <Arc> arcIter = graph.arcs();
+
+			while(arcIter.hasNext())
+				arcList.add(arcIter.next());
+
+			int arcCount = (int) (arcList.size() * fraction);
+
+			for(int i = 0; i < arcCount; i++)
+				java.util.Collections.swap(arcList, i, i + random.nextInt(arcList.size() - i));
+
+			long start = System.nanoTime();
+
+			for(int i = 0; i < arcCount; i++)
+				graph.removeArc(arcList.get(i));
+
+			long arcTime = System.nanoTime() - start;
+
+			System.out.println("Removed " + arcCount + " arcs in " + (arcTime / 1000000) + " ms ("
+					+ (arcCount == 0 ? 0 : arcTime / arcCount) + " ns per arc)");
+			check(graph);
+
+			//Then remove the same fraction of the vertices, along with their arcs
+			ArrayList <Vertex> vertexList = new ArrayList <Vertex>();
+			java.util.Iterator <Map.Entry<String, Vertex>> vertexIter = graph.vertices();
+
+			while(vertexIter.hasNext())
+				vertexList.add(vertexIter.next().getValue());
+
+			int vertexCount = (int) (vertexList.size() * fraction);
+
+			for(int i = 0; i < vertexCount; i++)
+				java.util.Collections.swap(vertexList, i, i + random.nextInt(vertexList.size() - i));
+
+			int arcsBefore = graph.numArcs();
+			start = System.nanoTime();
+
+			for(int i = 0; i < vertexCount; i++)
+				graph.removeVertex(vertexList.get(i));
+
+			long vertexTime = System.nanoTime() - start;
+
+			System.out.println("Removed " + vertexCount + " vertices and " + (arcsBefore - graph.numArcs())
+					+ " arcs in " + (vertexTime / 1000000) + " ms");
+			check(graph);
+		}
+
+		//If the file could not be read or parsed
+		catch(IOException e){
+			System.out.println("IOException: " + e.getMessage());
+		}
+	}
+
+	/*
+	 * Prints whether the arc list and the in and out adjacency lists hold the same number of arcs
+	 */
+	private static void check(DirectedGraph graph){
+		int arcs = graph.numArcs();
+		int out = graph.totalOutVertices();
+		int in = graph.totalInVertices();
+
+		if(arcs == out && arcs == in)
+			System.out.println("Vertices: " + graph.numVertices() + "  Arcs: " + arcs + "  (adjacency lists agree)");
+
+		else
+			System.out.println("Mismatch!  Arcs: " + arcs + "  Out: " + out + "  In: " + in);
+	}
+}
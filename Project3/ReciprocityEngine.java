@@ -0,0 +1,162 @@
+package project3;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * This class counts the reciprocal arcs of the CSR view of a Directed Graph.
+ * An arc v -> w is reciprocal if w -> v is also an arc, which is the same as w being in both the
+ * out list and the in list of v.  Both lists are sorted in the CSR view, so the reciprocal arcs out of v
+ * are found by merging the two lists once instead of searching for the reverse of every arc.
+ * An out arc that is in the graph more than once is counted every time, the same as the driver's reciprocity.
+ *
+ * With more than one thread the vertices are split into ranges on a fork/join pool.
+ * A range is split by the number of out and in arcs it has to merge, so a hub doesn't hold up one thread
+ * while the rest sit idle.  Each range returns its own count, and the counts are added at the end.
+ *
+ * The methods can:
+ * count the reciprocal arcs on a given number of threads
+ * provide the number of reciprocal arcs and the reciprocity
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class ReciprocityEngine {
+
+	//Ranges that have fewer arcs than this to merge are not split any further
+	private static final long MIN_WORK = 1 << 16;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The result of the last count
+	private long reciprocal = 0;
+
+	//Counts on the calling thread
+	public ReciprocityEngine(CsrGraph csr){
+		this(csr, 1);
+	}
+
+	//Counts on a fork/join pool if threads is more than 1
+	public ReciprocityEngine(CsrGraph csr, int threads){
+		this.csr = csr;
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Counts the reciprocal arcs of the graph
+	 */
+	public void run(){
+		int n = csr.numVertices();
+
+		if(threads == 1 || work(n) <= MIN_WORK){
+			reciprocal = countRange(0, n);
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			reciprocal = pool.invoke(new VertexRange(0, n));
+		}
+
+		finally{
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Returns the number of out and in arcs of the vertices before ID v, which is the merging they need
+	 */
+	private long work(int v){
+		return (long) csr.outOffsets[v] + csr.inOffsets[v];
+	}
+
+	/*
+	 * Merges the out and in lists of every vertex from ID from up to to and returns the reciprocal arcs found
+	 */
+	private long countRange(int from, int to){
+		int[] outTargets = csr.outTargets;
+		int[] inTargets = csr.inTargets;
+		long count = 0;
+
+		for(int v = from; v < to; v++){
+			int out = csr.outOffsets[v];
+			int outEnd = csr.outOffsets[v + 1];
+			int in = csr.inOffsets[v];
+			int inEnd = csr.inOffsets[v + 1];
+
+			while(out < outEnd && in < inEnd){
+				int w = outTargets[out];
+				int u = inTargets[in];
+
+				if(w < u)
+					out++;
+
+				else if(w > u)
+					in++;
+
+				//Only the out side moves on a match, so a repeated out arc matches again
+				else{
+					count++;
+					out++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/*
+	 * A range of vertices that splits in half by work until it is small enough to merge directly
+	 */
+	private class VertexRange extends RecursiveTask <Long> {
+		private final int from;
+		private final int to;
+
+		VertexRange(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Long compute(){
+			if(to - from <= 1 || work(to) - work(from) <= MIN_WORK)
+				return countRange(from, to);
+
+			//Split where half of the work has been done, keeping at least one vertex on each side
+			long half = (work(from) + work(to)) >>> 1;
+			int low = from + 1;
+			int high = to - 1;
+
+			while(low < high){
+				int mid = (low + high) >>> 1;
+
+				if(work(mid) < half)
+					low = mid + 1;
+
+				else
+					high = mid;
+			}
+
+			VertexRange left = new VertexRange(from, low);
+			left.fork();
+
+			long count = new VertexRange(low, to).compute();
+
+			return count + left.join();
+		}
+	}
+
+	/*
+	 * Returns the number of reciprocal arcs found by the last count
+	 */
+	public long getReciprocal(){
+		return reciprocal;
+	}
+
+	/*
+	 * Returns the fraction of arcs that are reciprocal
+	 */
+	public double getReciprocity(){
+		return (double) reciprocal / csr.numArcs();
+	}
+}
@@ -0,0 +1,573 @@
+package project3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * This class finds the strongly connected components of a CsrGraph with Tarjan's algorithm.
+ * The depth first search uses an explicit stack of vertices and arc positions instead of
+ * recursion, so deep graphs can't overflow the call stack, and the graph is never changed.
+ * Every vertex is given a component number from 0 to numComponents() - 1.
+ *
+ * With more than one thread it runs a parallel forward-backward decomposition instead.
+ * First every vertex with no in or out arcs left is trimmed into a component of its own, in parallel.
+ * Each vertex keeps a count of its in and out arcs from vertices that haven't been trimmed.  Trimming a
+ * vertex takes one off the counts of its neighbors, and a neighbor whose count reaches 0 is trimmed next
+ * by the same thread, so trimming looks at each arc a constant number of times however long the chains are.
+ * Then a pivot is picked from what is left.  The vertices it can reach and the vertices that can
+ * reach it are found with a BFS over the out and in arcs, and their intersection is the pivot's component.
+ * The forward-only, backward-only, and untouched vertices can't share a component, so each of these
+ * partitions is searched again.  The largest one is searched by the same task in a loop and the other two
+ * are forked, so the call stack stays shallow however many rounds it takes.
+ * Small partitions, and partitions that pivots keep taking only a little out of, use Tarjan's algorithm.
+ *
+ * The methods can:
+ * find the component number of every vertex ID on one or more threads
+ * provide the number of components and the size of the largest one
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class SccEngine {
+
+	//Partitions smaller than this are searched with Tarjan's algorithm instead of being split further
+	private static final int MIN_PARTITION = 4096;
+
+	//The number of rounds that each take out less than 1/16 of a partition before the rest is searched with Tarjan's algorithm
+	private static final int MAX_POOR_ROUNDS = 4;
+
+	//Vertex ranges smaller than this are not split any further while trimming
+	private static final int MIN_TRIM_RANGE = 8192;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The component number of each vertex and the number of components
+	private int[] components = null;
+	private int numComponents = 0;
+
+	//The partition each vertex is in during a parallel search, and the Tarjan arrays shared by all partitions
+	private int[] partition;
+	private int[] discovery;
+	private int[] low;
+	private AtomicInteger nextPartition;
+	private AtomicInteger nextComponent;
+
+	//The number of in and out arcs of each vertex from vertices that haven't been trimmed, not counting loops,
+	//and whether a thread has taken each vertex to trim
+	private AtomicIntegerArray liveIn;
+	private AtomicIntegerArray liveOut;
+	private AtomicIntegerArray claimed;
+
+	//Finds the components on one thread
+	public SccEngine(CsrGraph csr){
+		this(csr, 1);
+	}
+
+	//Finds the components on the given number of threads
+	public SccEngine(CsrGraph csr, int threads){
+		this.csr = csr;
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Returns the component number of each vertex ID, finding them the first time it is called
+	 */
+	public int[] components(){
+		if(components == null){
+			if(threads > 1)
+				forwardBackward();
+
+			else
+				tarjan();
+		}
+
+		return components;
+	}
+
+	/*
+	 * Returns the number of strongly connected components
+	 */
+	public int numComponents(){
+		components();
+		return numComponents;
+	}
+
+	/*
+	 * Returns the number of vertices in the largest strongly connected component
+	 */
+	public int largestComponent(){
+		int[] sizes = new int[numComponents()];
+		int largest = 0;
+
+		for(int i = 0; i < components.length; i++){
+			sizes[components[i]]++;
+
+			if(sizes[components[i]] > largest)
+				largest = sizes[components[i]];
+		}
+
+		return largest;
+	}
+
+	/*
+	 * Tarjan's algorithm with explicit stacks.  A vertex that has been discovered but
+	 * not given a component yet is on the component stack
+	 */
+	private void tarjan(){
+		int n = csr.numVertices();
+		components = new int[n];
+		Arrays.fill(components, -1);
+		numComponents = 0;
+
+		//Discovery order (0 is undiscovered) and the lowest discovery order reachable
+		int[] discovery = new int[n];
+		int[] low = new int[n];
+		int time = 0;
+
+		//The search stack holds the path being explored and the next arc to look at for each vertex
+		int[] path = new int[n];
+		int[] nextArc = new int[n];
+		int depth = 0;
+
+		//The vertices waiting to be assigned a component
+		int[] stack = new int[n];
+		int top = 0;
+
+		for(int root = 0; root < n; root++){
+			if(discovery[root] != 0)
+				continue;
+
+			//Discover the root
+			discovery[root] = low[root] = ++time;
+			stack[top++] = root;
+			path[depth] = root;
+			nextArc[depth] = csr.outOffsets[root];
+			depth++;
+
+			while(depth > 0){
+				int u = path[depth - 1];
+
+				//Look at the next arc out of u
+				if(nextArc[depth - 1] < csr.outOffsets[u + 1]){
+					int v = csr.outTargets[nextArc[depth - 1]++];
+
+					//Discover v and explore it before the rest of u's arcs
+					if(discovery[v] == 0){
+						discovery[v] = low[v] = ++time;
+						stack[top++] = v;
+						path[depth] = v;
+						nextArc[depth] = csr.outOffsets[v];
+						depth++;
+					}
+
+					//v is still on the stack so it is in the same component as u
+					else if(components[v] == -1 && discovery[v] < low[u])
+						low[u] = discovery[v];
+				}
+
+				//All of u's arcs have been examined
+				else{
+					depth--;
+
+					//u is the root of a component, so everything above it on the stack belongs to it
+					if(low[u] == discovery[u]){
+						int w;
+
+						do{
+							w = stack[--top];
+							components[w] = numComponents;
+						} while(w != u);
+
+						numComponents++;
+					}
+
+					//Pass the low value back up to u's parent
+					if(depth > 0){
+						int parent = path[depth - 1];
+
+						if(low[u] < low[parent])
+							low[parent] = low[u];
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * The parallel forward-backward search.  Every vertex starts in partition 0
+	 */
+	private void forwardBackward(){
+		int n = csr.numVertices();
+		components = new int[n];
+		Arrays.fill(components, -1);
+
+		partition = new int[n];
+		discovery = new int[n];
+		low = new int[n];
+		nextPartition = new AtomicInteger(1);
+		nextComponent = new AtomicInteger(0);
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			//Count the arcs of every vertex, then trim everything that can't be on a cycle
+			liveIn = new AtomicIntegerArray(n);
+			liveOut = new AtomicIntegerArray(n);
+			claimed = new AtomicIntegerArray(n);
+
+			pool.invoke(new TrimRange(0, n, false));
+			pool.invoke(new TrimRange(0, n, true));
+
+			//Gather the vertices that are left into the first partition
+			int left = 0;
+
+			for(int v = 0; v < n; v++){
+				if(components[v] == -1)
+					left++;
+			}
+
+			int[] vertices = new int[left];
+			left = 0;
+
+			for(int v = 0; v < n; v++){
+				if(components[v] == -1)
+					vertices[left++] = v;
+			}
+
+			pool.invoke(new PartitionTask(vertices, 0));
+		}
+
+		finally{
+			pool.shutdown();
+		}
+
+		partition = null;
+		discovery = null;
+		low = null;
+		liveIn = null;
+		liveOut = null;
+		claimed = null;
+		numComponents = nextComponent.get();
+	}
+
+	/*
+	 * Returns the number of arcs of v in the given arcs that aren't loops
+	 */
+	private int countArcs(int v, int[] offsets, int[] targets){
+		int count = 0;
+
+		for(int i = offsets[v]; i < offsets[v + 1]; i++){
+			if(targets[i] != v)
+				count++;
+		}
+
+		return count;
+	}
+
+	/*
+	 * Trims v and then every vertex it leaves with no in or out arcs, and so on, using a stack instead of
+	 * recursion.  Returns the stack so it can be used again
+	 */
+	private int[] trim(int v, int[] stack){
+		int size = 0;
+		stack[size++] = v;
+
+		while(size > 0){
+			v = stack[--size];
+			components[v] = nextComponent.getAndIncrement();
+
+			//Take v off the in counts of its out neighbors and the out counts of its in neighbors
+			for(int pass = 0; pass < 2; pass++){
+				int[] offsets = pass == 0 ? csr.outOffsets : csr.inOffsets;
+				int[] targets = pass == 0 ? csr.outTargets : csr.inTargets;
+				AtomicIntegerArray counts = pass == 0 ? liveIn : liveOut;
+
+				for(int i = offsets[v]; i < offsets[v + 1]; i++){
+					int w = targets[i];
+
+					if(w != v && counts.decrementAndGet(w) == 0 && claimed.compareAndSet(w, 0, 1)){
+						if(size == stack.length)
+							stack = Arrays.copyOf(stack, size * 2);
+
+						stack[size++] = w;
+					}
+				}
+			}
+		}
+
+		return stack;
+	}
+
+	/*
+	 * Finds the vertices reachable from the pivot over the given arcs that are in the partition
+	 * from, and moves them to partition to.
+	 * Vertices in partition also are moved to component instead, which is how the backward
+	 * search picks out the vertices the forward search also reached
+	 */
+	private void reach(int pivot, int[] offsets, int[] targets, int from, int also, int to, int component, int[] queue){
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = pivot;
+
+		while(head < tail){
+			int u = queue[head++];
+
+			for(int i = offsets[u]; i < offsets[u + 1]; i++){
+				int w = targets[i];
+
+				if(components[w] != -1)
+					continue;
+
+				if(partition[w] == from){
+					partition[w] = to;
+					queue[tail++] = w;
+				}
+
+				else if(partition[w] == also){
+					components[w] = component;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Tarjan's algorithm limited to the vertices of one partition that don't have a component yet.
+	 * The partitions don't overlap, so they can all share the discovery and low arrays
+	 */
+	private void tarjan(int[] vertices, int label){
+		int size = vertices.length;
+		int time = 0;
+
+		int[] path = new int[size];
+		int[] nextArc = new int[size];
+		int depth = 0;
+
+		int[] stack = new int[size];
+		int top = 0;
+
+		for(int r = 0; r < size; r++){
+			int root = vertices[r];
+
+			if(discovery[root] != 0 || components[root] != -1)
+				continue;
+
+			discovery[root] = low[root] = ++time;
+			stack[top++] = root;
+			path[depth] = root;
+			nextArc[depth] = csr.outOffsets[root];
+			depth++;
+
+			while(depth > 0){
+				int u = path[depth - 1];
+
+				if(nextArc[depth - 1] < csr.outOffsets[u + 1]){
+					int v = csr.outTargets[nextArc[depth - 1]++];
+
+					//Arcs that leave the partition can't be part of a cycle
+					if(partition[v] != label)
+						continue;
+
+					if(discovery[v] == 0){
+						if(components[v] != -1)
+							continue;
+
+						discovery[v] = low[v] = ++time;
+						stack[top++] = v;
+						path[depth] = v;
+						nextArc[depth] = csr.outOffsets[v];
+						depth++;
+					}
+
+					else if(components[v] == -1 && discovery[v] < low[u])
+						low[u] = discovery[v];
+				}
+
+				else{
+					depth--;
+
+					if(low[u] == discovery[u]){
+						int component = nextComponent.getAndIncrement();
+						int w;
+
+						do{
+							w = stack[--top];
+							components[w] = component;
+						} while(w != u);
+					}
+
+					if(depth > 0){
+						int parent = path[depth - 1];
+
+						if(low[u] < low[parent])
+							low[parent] = low[u];
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Counts the arcs of the vertices in a range, or trims the ones that can't be on a cycle,
+	 * splitting the range in half until it is small
+	 */
+	private class TrimRange extends RecursiveAction {
+		private final int from;
+		private final int to;
+		private final boolean trim;
+
+		TrimRange(int from, int to, boolean trim){
+			this.from = from;
+			this.to = to;
+			this.trim = trim;
+		}
+
+		protected void compute(){
+			if(to - from <= MIN_TRIM_RANGE){
+				if(!trim){
+					for(int v = from; v < to; v++){
+						liveIn.set(v, countArcs(v, csr.inOffsets, csr.inTargets));
+						liveOut.set(v, countArcs(v, csr.outOffsets, csr.outTargets));
+					}
+
+					return;
+				}
+
+				int[] stack = new int[64];
+
+				//A vertex with no arcs in or out starts a chain of trims, unless another thread already took it
+				for(int v = from; v < to; v++){
+					if((liveIn.get(v) == 0 || liveOut.get(v) == 0) && claimed.compareAndSet(v, 0, 1))
+						stack = trim(v, stack);
+				}
+
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new TrimRange(from, mid, trim), new TrimRange(mid, to, trim));
+		}
+	}
+
+	/*
+	 * Finds the components of one partition.  Every component lies entirely inside one partition
+	 */
+	private class PartitionTask extends RecursiveAction {
+		private final int[] vertices;
+		private final int label;
+
+		PartitionTask(int[] vertices, int label){
+			this.vertices = vertices;
+			this.label = label;
+		}
+
+		protected void compute(){
+			int[] vertices = this.vertices;
+			int label = this.label;
+			int[] queue = null;
+			int poorRounds = 0;
+			ArrayList <PartitionTask> forked = new ArrayList <PartitionTask>();
+
+			//Each round takes out the pivot's component, forks the two smaller partitions, and goes on with the
+			//largest one here, so the call stack only grows for partitions of at most half the size
+			while(vertices.length >= MIN_PARTITION && poorRounds < MAX_POOR_ROUNDS){
+				//The queue is made once, big enough for the first partition, since every later one is smaller
+				if(queue == null)
+					queue = new int[vertices.length];
+
+				//Pick the vertex with the most arcs as the pivot since it is most likely in a big component
+				int pivot = vertices[0];
+				long best = -1;
+
+				for(int i = 0; i < vertices.length; i++){
+					int v = vertices[i];
+					long arcs = (long) csr.outDegree(v) * csr.inDegree(v);
+
+					if(components[v] == -1 && arcs > best){
+						best = arcs;
+						pivot = v;
+					}
+				}
+
+				int forward = nextPartition.getAndIncrement();
+				int backward = nextPartition.getAndIncrement();
+				int component = nextComponent.getAndIncrement();
+
+				//Everything the pivot reaches moves to the forward partition
+				partition[pivot] = forward;
+				reach(pivot, csr.outOffsets, csr.outTargets, label, -1, forward, component, queue);
+
+				//Everything that reaches the pivot is in its component if the forward search got there too
+				components[pivot] = component;
+				reach(pivot, csr.inOffsets, csr.inTargets, label, forward, backward, component, queue);
+
+				//Split what is left into the forward-only, backward-only, and untouched partitions
+				int[] labels = {forward, backward, label};
+				int[] counts = new int[3];
+
+				for(int i = 0; i < vertices.length; i++){
+					int v = vertices[i];
+
+					if(components[v] == -1)
+						counts[slot(partition[v], forward, backward)]++;
+				}
+
+				int[][] parts = {new int[counts[0]], new int[counts[1]], new int[counts[2]]};
+				Arrays.fill(counts, 0);
+
+				for(int i = 0; i < vertices.length; i++){
+					int v = vertices[i];
+
+					if(components[v] == -1){
+						int p = slot(partition[v], forward, backward);
+						parts[p][counts[p]++] = v;
+					}
+				}
+
+				int largest = 0;
+
+				for(int p = 1; p < 3; p++){
+					if(parts[p].length > parts[largest].length)
+						largest = p;
+				}
+
+				for(int p = 0; p < 3; p++){
+					if(p != largest && parts[p].length > 0){
+						PartitionTask task = new PartitionTask(parts[p], labels[p]);
+						task.fork();
+						forked.add(task);
+					}
+				}
+
+				//A pivot that only took out a little, as in a long chain of small cycles, counts toward giving up on pivots
+				if(parts[largest].length > vertices.length - vertices.length / 16)
+					poorRounds++;
+
+				vertices = parts[largest];
+				label = labels[largest];
+			}
+
+			//A small partition, or one the pivots don't split well, is finished with Tarjan's algorithm
+			tarjan(vertices, label);
+
+			for(int i = forked.size() - 1; i >= 0; i--)
+				forked.get(i).join();
+		}
+
+		//Which of the three new partitions a partition label goes in
+		private int slot(int p, int forward, int backward){
+			if(p == forward)
+				return 0;
+
+			if(p == backward)
+				return 1;
+
+			return 2;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,394 @@
+package project3;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * This class counts the closed and total paths of length 2 in the CSR view of an Undirected Graph,
+ * which are the numbers the clustering coefficient is made from.
+ * Each arc is pointed from the vertex of lower degree to the vertex of higher degree
+ * (ties are broken by ID), so every vertex only keeps its "forward" adjacent vertices
+ * and a hub never has to look through its whole list.
+ * A triangle u, v, w is found once, at its lowest vertex u, by merging the sorted forward lists of u and v.
+ *
+ * The counts are the same as visiting every path firstV - secV - thirdV with thirdV != firstV:
+ * each triangle closes 6 of those paths, and a loop on secV closes 4 paths for every other adjacent vertex of secV.
+ *
+ * With more than one thread the forward arcs are split into ranges on a fork/join pool.
+ * A range is split by the length of the lists it has to merge rather than by its number of arcs,
+ * so the arcs of a hub are spread over several ranges.  Each worker thread adds the triangles it finds
+ * into its own per vertex array, and the arrays are added together at the end.
+ *
+ * The methods can:
+ * count the triangles of the graph on a given number of threads
+ * provide the closed paths, the total paths, the number of triangles, and the clustering coefficient
+ * provide the triangles and the local clustering coefficient of each vertex
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class TriangleEngine {
+
+	//Ranges that have less merging than this to do are not split any further
+	private static final long MIN_WORK = 1 << 16;
+
+	private final CsrGraph csr;
+	private final int threads;
+
+	//The forward adjacent vertices of vertex v are forwardTargets[forwardOffsets[v]] up to forwardTargets[forwardOffsets[v + 1] - 1]
+	private int[] forwardOffsets;
+	private int[] forwardTargets;
+
+	//The running total of the merging done by the forward arcs before each one
+	private long[] work;
+
+	//The triangle arrays of the worker threads
+	private List <long[]> threadCounts;
+	private ThreadLocal <long[]> counts;
+
+	//The results of the last count
+	private long triangles = 0;
+	private long closed = 0;
+	private long total = 0;
+
+	//The triangles, closed paths, and total paths through each vertex
+	private long[] vertexTriangles;
+	private long[] vertexClosed;
+	private long[] vertexTotal;
+
+	//Counts on the calling thread
+	public TriangleEngine(CsrGraph csr){
+		this(csr, 1);
+	}
+
+	//Counts on a fork/join pool if threads is more than 1
+	public TriangleEngine(CsrGraph csr, int threads){
+		this.csr = csr;
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Counts the paths and triangles of the graph
+	 */
+	public void run(){
+		int n = csr.numVertices();
+		int[] simpleDegree = new int[n];
+
+		total = 0;
+		vertexClosed = new long[n];
+		vertexTotal = new long[n];
+
+		//Count the distinct adjacent vertices of each vertex, and the paths through it
+		for(int v = 0; v < n; v++){
+			int start = csr.outOffsets[v];
+			int end = csr.outOffsets[v + 1];
+			long deg = end - start;
+			long repeats = 0;
+			int loops = 0;
+
+			//The range is sorted, so each adjacent vertex is one run of equal IDs
+			for(int i = start; i < end; ){
+				int adjV = csr.outTargets[i];
+				int runEnd = i + 1;
+
+				while(runEnd < end && csr.outTargets[runEnd] == adjV)
+					runEnd++;
+
+				long mult = runEnd - i;
+				repeats += mult * mult;
+
+				if(adjV == v)
+					loops += mult;
+
+				else
+					simpleDegree[v]++;
+
+				i = runEnd;
+			}
+
+			//Every ordered pair of places in the list that hold different vertices is a path
+			vertexTotal[v] = deg * deg - repeats;
+			total += vertexTotal[v];
+
+			//A loop place paired with any other adjacent vertex is closed, in both orders
+			vertexClosed[v] = 2L * loops * simpleDegree[v];
+		}
+
+		orient(simpleDegree);
+
+		if(threads > 1 && forwardTargets.length > 0)
+			countParallel();
+
+		else{
+			vertexTriangles = new long[n];
+			countRange(0, forwardTargets.length, vertexTriangles);
+		}
+
+		//Each triangle is counted at all 3 of its vertices and closes 2 paths through each one
+		triangles = 0;
+		closed = 0;
+
+		for(int v = 0; v < n; v++){
+			triangles += vertexTriangles[v];
+			vertexClosed[v] += 2 * vertexTriangles[v];
+			closed += vertexClosed[v];
+		}
+
+		triangles /= 3;
+		forwardOffsets = null;
+		forwardTargets = null;
+	}
+
+	/*
+	 * Counts the triangles of every forward arc on a fork/join pool and adds up the arrays of the worker threads
+	 */
+	private void countParallel(){
+		final int n = csr.numVertices();
+		int m = forwardTargets.length;
+
+		//The merging for an arc u -> v goes through both forward lists
+		work = new long[m + 1];
+
+		for(int u = 0; u < n; u++){
+			for(int i = forwardOffsets[u]; i < forwardOffsets[u + 1]; i++){
+				int v = forwardTargets[i];
+				work[i + 1] = work[i] + 1 + forwardOffsets[u + 1] - forwardOffsets[u] + forwardOffsets[v + 1] - forwardOffsets[v];
+			}
+		}
+
+		threadCounts = Collections.synchronizedList(new ArrayList <long[]>());
+		counts = new ThreadLocal <long[]>(){
+			protected long[] initialValue(){
+				long[] array = new long[n];
+				threadCounts.add(array);
+				return array;
+			}
+		};
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			pool.invoke(new ArcRange(0, m));
+		}
+
+		finally{
+			pool.shutdown();
+		}
+
+		vertexTriangles = new long[n];
+
+		for(long[] array : threadCounts){
+			for(int v = 0; v < n; v++)
+				vertexTriangles[v] += array[v];
+		}
+
+		work = null;
+		threadCounts = null;
+		counts = null;
+	}
+
+	/*
+	 * Counts the triangles of the forward arcs from index from up to index to into a per vertex array
+	 */
+	private void countRange(int from, int to, long[] found){
+		if(from >= to)
+			return;
+
+		//Find the vertex that the first arc comes from
+		int low = 0;
+		int high = csr.numVertices() - 1;
+
+		while(low < high){
+			int mid = (low + high + 1) >>> 1;
+
+			if(forwardOffsets[mid] <= from)
+				low = mid;
+
+			else
+				high = mid - 1;
+		}
+
+		int u = low;
+
+		for(int i = from; i < to; i++){
+			while(forwardOffsets[u + 1] <= i)
+				u++;
+
+			intersect(u, forwardTargets[i], found);
+		}
+	}
+
+	/*
+	 * Keeps the adjacent vertices of each vertex that come after it in degree order, without loops or repeats
+	 */
+	private void orient(int[] simpleDegree){
+		int n = csr.numVertices();
+		forwardOffsets = new int[n + 1];
+
+		for(int v = 0; v < n; v++){
+			int count = 0;
+
+			for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1]; i++){
+				int adjV = csr.outTargets[i];
+
+				if((i == csr.outOffsets[v] || csr.outTargets[i - 1] != adjV) && before(v, adjV, simpleDegree))
+					count++;
+			}
+
+			forwardOffsets[v + 1] = forwardOffsets[v] + count;
+		}
+
+		forwardTargets = new int[forwardOffsets[n]];
+
+		//The ranges stay sorted by ID since they are copied in order
+		for(int v = 0; v < n; v++){
+			int pos = forwardOffsets[v];
+
+			for(int i = csr.outOffsets[v]; i < csr.outOffsets[v + 1]; i++){
+				int adjV = csr.outTargets[i];
+
+				if((i == csr.outOffsets[v] || csr.outTargets[i - 1] != adjV) && before(v, adjV, simpleDegree))
+					forwardTargets[pos++] = adjV;
+			}
+		}
+	}
+
+	/*
+	 * Returns true if u comes before v in degree order.  A vertex never comes before itself
+	 */
+	private static boolean before(int u, int v, int[] simpleDegree){
+		if(simpleDegree[u] != simpleDegree[v])
+			return simpleDegree[u] < simpleDegree[v];
+
+		return u < v;
+	}
+
+	/*
+	 * Finds the vertices in both the forward list of u and the forward list of v.
+	 * Each one makes a triangle, which is added to all 3 of its vertices
+	 */
+	private void intersect(int u, int v, long[] found){
+		int i = forwardOffsets[u];
+		int iEnd = forwardOffsets[u + 1];
+		int j = forwardOffsets[v];
+		int jEnd = forwardOffsets[v + 1];
+		int count = 0;
+
+		while(i < iEnd && j < jEnd){
+			int a = forwardTargets[i];
+			int b = forwardTargets[j];
+
+			if(a < b)
+				i++;
+
+			else if(a > b)
+				j++;
+
+			else{
+				found[a]++;
+				count++;
+				i++;
+				j++;
+			}
+		}
+
+		found[u] += count;
+		found[v] += count;
+	}
+
+	/*
+	 * A range of forward arcs that splits in half by its merging work until it is small enough to count directly
+	 */
+	private class ArcRange extends RecursiveAction {
+		private final int from;
+		private final int to;
+
+		ArcRange(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute(){
+			if(to - from <= 1 || work[to] - work[from] <= MIN_WORK){
+				countRange(from, to, counts.get());
+				return;
+			}
+
+			//Split where half of the work has been done, keeping at least one arc on each side
+			long half = (work[from] + work[to]) >>> 1;
+			int low = from + 1;
+			int high = to - 1;
+
+			while(low < high){
+				int mid = (low + high) >>> 1;
+
+				if(work[mid] < half)
+					low = mid + 1;
+
+				else
+					high = mid;
+			}
+
+			invokeAll(new ArcRange(from, low), new ArcRange(low, to));
+		}
+	}
+
+	/*
+	 * Returns the number of triangles found by the last count
+	 */
+	public long getTriangles(){
+		return triangles;
+	}
+
+	/*
+	 * Returns the number of closed paths of length 2 found by the last count
+	 */
+	public long getClosed(){
+		return closed;
+	}
+
+	/*
+	 * Returns the number of paths of length 2 found by the last count
+	 */
+	public long getTotal(){
+		return total;
+	}
+
+	/*
+	 * Returns the fraction of paths of length 2 that are closed
+	 */
+	public double getCoefficient(){
+		return (double) closed / (double) total;
+	}
+
+	/*
+	 * Returns the number of triangles that vertex v is in
+	 */
+	public long getTriangles(int v){
+		return vertexTriangles[v];
+	}
+
+	/*
+	 * Returns the fraction of paths of length 2 through vertex v that are closed, or 0 if there are none
+	 */
+	public double getLocalCoefficient(int v){
+		if(vertexTotal[v] == 0)
+			return 0;
+
+		return (double) vertexClosed[v] / (double) vertexTotal[v];
+	}
+
+	/*
+	 * Returns the average of the local clustering coefficients of every vertex
+	 */
+	public double getAverageLocalCoefficient(){
+		double sum = 0;
+
+		for(int v = 0; v < vertexTotal.length; v++)
+			sum += getLocalCoefficient(v);
+
+		return sum / vertexTotal.length;
+	}
+}
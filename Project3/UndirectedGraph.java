@@ -1,23 +1,33 @@
 package project3;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 /*
  * This class represents an Undirected Graph.  It uses 4 main structures.
  * The vertices are stored in a hashtable with the key as String (vertex ID) and a value of a Vertex
- * The adjacenct vertices are stored in a hashtable with the key as String (vertex ID) and value of an ArrayList of Vertex IDs
- * The pairs of vertices for each arc are stored in a hashtable with the key as a source vertex 
- * and the value as a hashtable with a key as a target vertex and a value of their shared Arc
+ * The adjacenct vertices are stored in an array indexed by the vertex's int ID, with an int array of the
+ * int IDs of its adjacent vertices, so reading the i'th adjacent vertex is a plain array read
+ * The pairs of vertices for each arc are stored in an ArcIndex, which maps the int IDs of the two
+ * vertices (smaller ID first, so either order finds it) to the ID of their shared Arc
  * The arcs themselves are stored in an ArrayList
  * 
  * The methods can:
  * provide iterators for arcs and vertices.
  * provide the amount of arcs and vertices
  * add, remove, view, or adjust data for both vertices and arcs.
+ * loop over the adjacent vertices of a vertex ID by index or with a callback, without making a list
  * add, remove, or view vertices and arcs themselves.
- * add, remove, or adjust annotations for both vertices and arcs
+ * check for an arc between two vertex IDs, or get its ID, without making any objects
+ * add, remove, or adjust annotations for both vertices and arcs, which are kept in AttributeStore columns
+ * indexed by the int ID each vertex and arc is given when it is inserted
+ * build the undirected version of a DirectedGraph
+ * freeze the graph into a CSR view with int vertex IDs
+ * set and get arc weights as numbers, stored in an int, float, or double column picked when the graph is made
  * 
  * Author:  Benjamin Chi
  * Class:  ICS 311/Algorithms
@@ -25,16 +35,153 @@ import java.util.Map;
 
 public class UndirectedGraph {
 	private Hashtable <String, Vertex> vertices;
-	private Hashtable <String, ArrayList<String>> adjacencyList;
-	private Hashtable <Vertex, Hashtable<Vertex, Arc>> arcs;
+	private int[][] adjacencyList;
+	private int[] adjacencySize;
+	private ArcIndex arcIndex;
 	private ArrayList<Arc> arcList;
 	
-	//Creates objects for the structures above
+	//The annotation columns, indexed by the int IDs given to each vertex and arc as it is inserted
+	private AttributeStore vertexAttributes;
+	private AttributeStore arcAttributes;
+	private int nextVertexId = 0;
+	private int nextArcId = 0;
+	
+	//The vertices by int ID, so an ID can be turned back into its vertex
+	private Vertex[] vertexById = new Vertex[16];
+	
+	//The arcs by int ID, so an ID from the arc index can be turned back into its arc
+	private Arc[] arcById = new Arc[16];
+	
+	//The arc weights, indexed by arc ID
+	private ArcWeights arcWeights;
+	
+	//Creates objects for the structures above with int weights
 	public UndirectedGraph(){
+		this(ArcWeights.INT);
+	}
+	
+	//Creates objects for the structures above with weights of type ArcWeights.INT, FLOAT, or DOUBLE
+	public UndirectedGraph(int weightType){
 		vertices = new Hashtable<String, Vertex>();
-		adjacencyList = new Hashtable <String, ArrayList<String>>();
-		arcs = new Hashtable <Vertex, Hashtable<Vertex, Arc>>();
+		adjacencyList = new int[16][];
+		adjacencySize = new int[16];
+		arcIndex = new ArcIndex();
 		arcList = new ArrayList<Arc>();
+		vertexAttributes = new AttributeStore();
+		arcAttributes = new AttributeStore();
+		arcWeights = new ArcWeights(weightType);
+	}
+	
+	//Creates objects for the structures above big enough for the given number of vertices and arcs,
+	//so none of them has to grow or rehash while the graph is loaded
+	public UndirectedGraph(int weightType, int vertexCapacity, int arcCapacity){
+		int tableCapacity = vertexCapacity * 4 / 3 + 1;
+		
+		vertices = new Hashtable<String, Vertex>(tableCapacity);
+		adjacencyList = new int[Math.max(16, vertexCapacity)][];
+		adjacencySize = new int[Math.max(16, vertexCapacity)];
+		arcIndex = new ArcIndex(arcCapacity);
+		arcList = new ArrayList<Arc>(arcCapacity);
+		vertexAttributes = new AttributeStore();
+		arcAttributes = new AttributeStore();
+		arcWeights = new ArcWeights(weightType);
+		arcWeights.ensureCapacity(arcCapacity);
+		vertexById = new Vertex[Math.max(16, vertexCapacity)];
+		arcById = new Arc[Math.max(16, arcCapacity)];
+	}
+	
+	/*
+	 * Builds the undirected version of a directed graph from its in and out adjacency lists.
+	 * Each vertex's neighbors are the merge of its sorted out and in adjacent vertices, so every
+	 * pair of vertices gets one arc no matter how many directed arcs there are between them.
+	 * The vertices share their key and data Strings with the directed graph
+	 */
+	public static UndirectedGraph fromDirected(DirectedGraph directed){
+		CsrGraph csr = directed.toCsr();
+		int n = csr.numVertices();
+		UndirectedGraph graph = new UndirectedGraph(directed.getWeightType(), n, csr.numArcs());
+		Vertex[] vertexList = new Vertex[n];
+		
+		for(int v = 0; v < n; v++){
+			Vertex dirV = csr.getVertex(v);
+			vertexList[v] = graph.insertVertex(dirV.getKey());
+			graph.setVertexData(vertexList[v], dirV.getData());
+		}
+		
+		for(int v = 0; v < n; v++){
+			int[] adjIds = new int[csr.outDegree(v) + csr.inDegree(v) + 1];
+			int size = 0;
+			int out = csr.outOffsets[v];
+			int outEnd = csr.outOffsets[v + 1];
+			int in = csr.inOffsets[v];
+			int inEnd = csr.inOffsets[v + 1];
+			int last = -1;
+			
+			//Merge the sorted out and in adjacent vertices, skipping repeats
+			while(out < outEnd || in < inEnd){
+				int w;
+				
+				if(in == inEnd || (out < outEnd && csr.outTargets[out] <= csr.inTargets[in]))
+					w = csr.outTargets[out++];
+				
+				else
+					w = csr.inTargets[in++];
+				
+				if(w == last)
+					continue;
+				
+				last = w;
+				adjIds[size++] = vertexList[w].getId();
+				
+				//A loop is in the vertex's own list twice, the same as insertArc
+				if(w == v)
+					adjIds[size++] = vertexList[w].getId();
+				
+				//Each pair gets its arc once, in the direction of a directed arc between them
+				if(w >= v){
+					if(csr.hasArc(v, w))
+						graph.addArc(vertexList[v], vertexList[w], directed, directed.getArc(csr.getVertex(v), csr.getVertex(w)));
+					
+					else
+						graph.addArc(vertexList[w], vertexList[v], directed, directed.getArc(csr.getVertex(w), csr.getVertex(v)));
+				}
+			}
+			
+			if(size > 0){
+				graph.adjacencyList[vertexList[v].getId()] = Arrays.copyOf(adjIds, size);
+				graph.adjacencySize[vertexList[v].getId()] = size;
+			}
+		}
+		
+		return graph;
+	}
+	
+	/*
+	 * Adds an arc to the arc table and arc list with the weight of a directed arc
+	 */
+	private void addArc(Vertex source, Vertex target, DirectedGraph directed, Arc directedArc){
+		Arc arc = new Arc(source, target);
+		arc.setId(nextArcId++, arcWeights);
+		
+		if(directedArc != null)
+			arcWeights.set(arc.getId(), directed.getWeight(directedArc));
+		
+		addToIndex(arc);
+		arcList.add(arc);
+	}
+	
+	/*
+	 * Puts an arc in the arcById array and the arc index
+	 */
+	private void addToIndex(Arc arc){
+		int v = arc.getSource().getId();
+		int w = arc.getTarget().getId();
+		
+		if(arc.getId() >= arcById.length)
+			arcById = Arrays.copyOf(arcById, Math.max(arcById.length * 2, arc.getId() + 1));
+		
+		arcById[arc.getId()] = arc;
+		arcIndex.put(Math.min(v, w), Math.max(v, w), arc.getId());
 	}
 	
 	/*
@@ -75,23 +222,33 @@ public class UndirectedGraph {
 	}
 	
 	/*
-	 * Returns an arc object that matches a source and target vertex
+	 * Returns the arc between two vertices, given in either order
 	 */
 	public Arc getArc(Vertex source, Vertex target){
+		int id = getArcId(source.getId(), target.getId());
 		
-		//Set variables
-		Arc targetArc = null;
-		Hashtable<Vertex, Arc> targetTable;
-		
-		if(arcs.containsKey(source)){
-			//Get the sub-hashtable that is associated with source
-			targetTable = arcs.get(source);
-			
-			//Get the arc that's associated with the target in the sub-hashtable
-			targetArc = targetTable.get(target);
-		}
-		
-		return targetArc;
+		return id == -1 ? null : arcById[id];
+	}
+	
+	/*
+	 * Returns the ID of the arc between the vertices with IDs v and w, or -1 if there is none
+	 */
+	public int getArcId(int v, int w){
+		return arcIndex.get(Math.min(v, w), Math.max(v, w));
+	}
+	
+	/*
+	 * Returns true if there is an arc between the vertices with IDs v and w
+	 */
+	public boolean hasArc(int v, int w){
+		return getArcId(v, w) != -1;
+	}
+	
+	/*
+	 * Returns the arc with a particular int ID
+	 */
+	public Arc getArc(int id){
+		return id < arcById.length ? arcById[id] : null;
 	}
 	
 	/*
@@ -114,8 +271,8 @@ public class UndirectedGraph {
 	public int degree(Vertex v){
 		int deg = 0;
 		
-		if(adjacencyList.containsKey(v.getKey())){
-			deg = adjacencyList.get(v.getKey()).size();
+		if(v.getId() >= 0 && v.getId() < adjacencySize.length){
+			deg = adjacencySize[v.getId()];
 		}
 		
 		return deg;
@@ -125,15 +282,11 @@ public class UndirectedGraph {
 	 * Returns an iterator object of all the adjacentVertices to a vertex
 	 */
 	public java.util.Iterator <Vertex> adjacentVertices(Vertex v){
-		ArrayList <String> adjKeys;
 		ArrayList <Vertex> adjList = new ArrayList <Vertex>();
-
-		if(adjacencyList.containsKey(v.getKey())){
-			adjKeys = adjacencyList.get(v.getKey());
-			
-			for(int i = 0; i < adjKeys.size(); i++){
-				adjList.add(vertices.get(adjKeys.get(i)));
-			}
+		int deg = degree(v);
+		
+		for(int i = 0; i < deg; i++){
+			adjList.add(vertexById[adjacencyList[v.getId()][i]]);
 		}
 		
 		return adjList.iterator();
@@ -153,13 +306,68 @@ public class UndirectedGraph {
 		return a.getTarget();
 	}
 	
+	/*
+	 * Returns the vertex with a particular int ID, or null if it was removed
+	 */
+	public Vertex getVertex(int id){
+		return vertexById[id];
+	}
+	
+	/*
+	 * Returns the number of arcs connected to the vertex with ID v
+	 */
+	public int degree(int v){
+		return adjacencySize[v];
+	}
+	
+	/*
+	 * Returns the ID of the i'th adjacent vertex of the vertex with ID v, for looping without an iterator
+	 */
+	public int neighbor(int v, int i){
+		return adjacencyList[v][i];
+	}
+	
+	/*
+	 * Gives the ID of every adjacent vertex of the vertex with ID v to action, straight from the adjacency list
+	 */
+	public void forEachNeighbor(int v, IntConsumer action){
+		int[] list = adjacencyList[v];
+		
+		for(int i = 0; i < adjacencySize[v]; i++)
+			action.accept(list[i]);
+	}
+	
+	/*
+	 * Adds w to the end of the adjacency list of v, doubling the list if it is full
+	 */
+	private void addAdjacent(int v, int w){
+		int[] list = adjacencyList[v];
+		
+		if(list == null || adjacencySize[v] == list.length){
+			list = list == null ? new int[4] : Arrays.copyOf(list, list.length * 2);
+			adjacencyList[v] = list;
+		}
+		
+		list[adjacencySize[v]++] = w;
+	}
+	
 	/*
 	 * Creates a new vertex and inserts it in the vertices table
 	 */
 	public Vertex insertVertex(String key){
 		Vertex vertex = new Vertex(key);
+		vertex.setId(nextVertexId++);
 		vertices.put(key, vertex);
 		
+		//The arrays indexed by vertex ID grow together
+		if(vertex.getId() == vertexById.length){
+			vertexById = Arrays.copyOf(vertexById, vertexById.length * 2);
+			adjacencyList = Arrays.copyOf(adjacencyList, vertexById.length);
+			adjacencySize = Arrays.copyOf(adjacencySize, vertexById.length);
+		}
+		
+		vertexById[vertex.getId()] = vertex;
+		
 		return vertex;
 	}
 	
@@ -168,71 +376,89 @@ public class UndirectedGraph {
 	 */
 	public Arc insertArc(Vertex source, Vertex target){
 		
-		//Checks to see if the arc exists
-		if(arcs.containsKey(source))
-			if(arcs.get(source).containsKey(target))
-				return arcs.get(source).get(target);
+		//Checks to see if the arc exists in either direction
+		Arc existing = getArc(source, target);
 		
-		if(arcs.containsKey(target))
-			if(arcs.get(target).containsKey(source))
-				return arcs.get(target).get(source);
+		if(existing != null)
+			return existing;
 		
 		Arc arc = new Arc(source, target);
-		String sourceKey = source.getKey();
-		String targetKey = target.getKey();
+		arc.setId(nextArcId++, arcWeights);
 		
-		//Checks the hashtable to see if the Vertex already has an arc
-		if(arcs.containsKey(source)){
-			arcs.get(source).put(target, arc);
-		}
+		addToIndex(arc);
 		
-		/*If the Vertex does not exist in the hashtable,
-		 * It creates a new sub-hashtable, puts the Arc in the table, and 
-		 * puts the sub-hashtable in the hashtable
-		 */
-		else{
-			Hashtable<Vertex, Arc> arcTable = new Hashtable<Vertex, Arc>();
-			arcTable.put(target, arc);
-			
-			arcs.put(source, arcTable);
-		}
+		//Adds each vertex to the other's adjacency list
+		addAdjacent(source.getId(), target.getId());
+		addAdjacent(target.getId(), source.getId());
 		
-		//Checks the hashtable to see if the Vertex key exists
-		if(adjacencyList.containsKey(sourceKey)){
-			adjacencyList.get(sourceKey).add(targetKey);
-		}
+		//Adds the arc to arcList array
+		arcList.add(arc);
 		
-		/* If the Vertex key does not exist, it creates a new ArrayList,
-		 * adds the Vertex to the Arraylist, and adds the ArrayList to the
-		 * hashtable
-		 */
-		else{
-			ArrayList <String> vertexArrayList = new ArrayList <String>();
-				vertexArrayList.add(targetKey);
-			
-			adjacencyList.put(sourceKey, vertexArrayList);
-		}
+		return arc;
+	}
+	
+	/*
+	 * Inserts count arcs at once.  Arc i is between vertexList[sources[i]] and vertexList[targets[i]]
+	 * with weight weights[i].  Like insertArc, an arc that is already there just gets the new weight.
+	 * Each vertex's adjacency list is made big enough once instead of growing arc by arc
+	 */
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, int[] weights, int count){
+		insertArcs(vertexList, sources, targets, weights, null, count);
+	}
+	
+	/*
+	 * Inserts count arcs at once in the given order, arc order[0] first.  The order is null to insert them
+	 * from 0 to count - 1.  GraphBuilder passes the arcs sorted by source, so they don't have to be copied
+	 */
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, int[] weights, int[] order, int count){
+		insertArcs(vertexList, sources, targets, new ArcWeights(weights), order, count);
+	}
+	
+	/*
+	 * Inserts count arcs at once in the given order, with arc i's weight read from weights as a double,
+	 * so GraphFile can load float and double weights without truncating them
+	 */
+	void insertArcs(Vertex[] vertexList, int[] sources, int[] targets, ArcWeights weights, int[] order, int count){
+		int n = vertexList.length;
+		int[] adjCount = new int[n];
 		
-		//Checks the hashtable to see if the Vertex key exists
-		if(adjacencyList.containsKey(targetKey)){
-			adjacencyList.get(targetKey).add(sourceKey);
+		//Count the most arcs each vertex could get
+		for(int i = 0; i < count; i++){
+			adjCount[sources[i]]++;
+			adjCount[targets[i]]++;
 		}
 		
-		/* If the Vertex key does not exist, it creates a new ArrayList,
-		 * adds the Vertex to the Arraylist, and adds the ArrayList to the
-		 * hashtable
-		 */
-		else{
-			ArrayList <String> vertexArrayList = new ArrayList <String>();
-				vertexArrayList.add(sourceKey);
+		//Make each vertex's list big enough for the arcs it could get
+		for(int v = 0; v < n; v++){
+			int id = vertexList[v].getId();
+			int needed = adjacencySize[id] + adjCount[v];
 			
-			adjacencyList.put(targetKey, vertexArrayList);
+			if(adjCount[v] > 0 && (adjacencyList[id] == null || adjacencyList[id].length < needed))
+				adjacencyList[id] = adjacencyList[id] == null ? new int[needed] : Arrays.copyOf(adjacencyList[id], needed);
 		}
 		
-		//Adds the arc to arcList array
-		arcList.add(arc);
-		
-		return arc;
+		for(int j = 0; j < count; j++){
+			int i = order == null ? j : order[j];
+			Vertex source = vertexList[sources[i]];
+			Vertex target = vertexList[targets[i]];
+			
+			//If the arc exists in either direction only update its weight
+			Arc arc = getArc(source, target);
+			
+			if(arc != null){
+				arcWeights.set(arc.getId(), weights.get(i));
+				continue;
+			}
+			
+			arc = new Arc(source, target);
+			arc.setId(nextArcId++, arcWeights);
+			arcWeights.set(arc.getId(), weights.get(i));
+			
+			addToIndex(arc);
+			adjacencyList[source.getId()][adjacencySize[source.getId()]++] = target.getId();
+			adjacencyList[target.getId()][adjacencySize[target.getId()]++] = source.getId();
+			arcList.add(arc);
+		}
 	}
 	
 	/*
@@ -250,72 +476,153 @@ public class UndirectedGraph {
 	}
 	
 	/*
-	 * Adds a new key and value to the hash map annotation for the vertex
+	 * Builds a read-only CSR view of the graph.  Every arc is in both of its vertices' ranges,
+	 * so the in arrays are the same as the out arrays.  A loop is in its vertex's range twice
+	 */
+	public CsrGraph toCsr(){
+		int n = vertices.size();
+		Vertex[] vertexList = new Vertex[n];
+		HashMap <String, Integer> ids = new HashMap <String, Integer>(n * 2);
+		
+		//Give every vertex a dense ID
+		Iterator <Map.Entry<String, Vertex>> it = vertices();
+		int id = 0;
+		
+		while(it.hasNext()){
+			Vertex currV = it.next().getValue();
+			vertexList[id] = currV;
+			ids.put(currV.getKey(), id);
+			id++;
+		}
+		
+		int[] offsets = new int[n + 1];
+		
+		//The dense ID of each vertex by its graph ID
+		int[] denseIds = new int[nextVertexId];
+		
+		for(int i = 0; i < n; i++)
+			denseIds[vertexList[i].getId()] = i;
+		
+		//Count the degrees of each vertex, then turn the counts into offsets
+		for(int i = 0; i < n; i++)
+			offsets[i + 1] = offsets[i] + adjacencySize[vertexList[i].getId()];
+		
+		int[] targets = new int[offsets[n]];
+		
+		//Copy the adjacency lists into the flat array
+		for(int i = 0; i < n; i++){
+			int v = vertexList[i].getId();
+			
+			for(int j = 0; j < adjacencySize[v]; j++)
+				targets[offsets[i] + j] = denseIds[adjacencyList[v][j]];
+		}
+		
+		return new CsrGraph(vertexList, ids, offsets, targets, offsets, targets);
+	}
+	
+	/*
+	 * Returns the annotation columns of the vertices, indexed by Vertex.getId()
+	 */
+	public AttributeStore vertexAttributes(){
+		return vertexAttributes;
+	}
+	
+	/*
+	 * Returns the annotation columns of the arcs, indexed by Arc.getId()
+	 */
+	public AttributeStore arcAttributes(){
+		return arcAttributes;
+	}
+	
+	/*
+	 * Returns the type of the arc weights, ArcWeights.INT, FLOAT, or DOUBLE
+	 */
+	public int getWeightType(){
+		return arcWeights.getType();
+	}
+	
+	/*
+	 * Returns the weight column of the arcs, indexed by Arc.getId()
+	 */
+	public ArcWeights arcWeights(){
+		return arcWeights;
+	}
+	
+	/*
+	 * Returns the weight of an arc as a double
+	 */
+	public double getWeight(Arc a){
+		return arcWeights.get(a.getId());
+	}
+	
+	/*
+	 * Returns the weight of an arc as an int
+	 */
+	public int getIntWeight(Arc a){
+		return arcWeights.getInt(a.getId());
+	}
+	
+	/*
+	 * Sets the weight of an arc
+	 */
+	public void setWeight(Arc a, double weight){
+		arcWeights.set(a.getId(), weight);
+	}
+	
+	/*
+	 * Sets the weight of an arc from an int
+	 */
+	public void setWeight(Arc a, int weight){
+		arcWeights.set(a.getId(), weight);
+	}
+	
+	/*
+	 * Adds a new key and value to the annotation columns for the vertex
 	 */
 	public void setAnnotation(Vertex v, Object k, Object o){
-		v.annotation.put(k, o);
+		vertexAttributes.set(v.getId(), k, o);
 	}
 	
 	/*
-	 * Adds a new key and value to the hash map annotation for the arc
+	 * Adds a new key and value to the annotation columns for the arc
 	 */
 	public void setAnnotation(Arc a, Object k, Object o){
-		a.annotation.put(k, o);
+		arcAttributes.set(a.getId(), k, o);
 	}
 	
 	/*
-	 * Returns the corresponding value of a particular key for a vertex from the hash map annotation
+	 * Returns the corresponding value of a particular key for a vertex from the annotation columns
 	 */
 	public Object getAnnotation(Vertex v, Object k){
-		return v.annotation.get(k);
+		return vertexAttributes.get(v.getId(), k);
 	}
 	
 	/*
-	 * Returns the corresponding value of a particular key for an arc from the hash map annotation
+	 * Returns the corresponding value of a particular key for an arc from the annotation columns
 	 */
 	public Object getAnnotation(Arc a, Object k){
-		return a.annotation.get(k);
+		return arcAttributes.get(a.getId(), k);
 	}
 	
 	/*
-	 * Removes the key and it's corresponding value for a vertex from the hash map annotation
+	 * Removes the key and it's corresponding value for a vertex from the annotation columns
 	 */
 	public Object removeAnnotation(Vertex v, Object k){
-		Object obj = v.annotation.get(k);
-		v.annotation.remove(k);
-		
-		return obj;
+		return vertexAttributes.remove(v.getId(), k);
 	}
 	
 	/*
-	 * Removes the key and it's corresponding value for a arc from the hash map annotation
+	 * Removes the key and it's corresponding value for a arc from the annotation columns
 	 */
 	public Object removeAnnotation(Arc a, Object k){
-		Object obj = a.annotation.get(k);
-		a.annotation.remove(k);
-		
-		return obj;
+		return arcAttributes.remove(a.getId(), k);
 	}
 		
 	/*
-	 * Removes all of a particular key on both arcs and vertices
+	 * Removes all of a particular key on both arcs and vertices by dropping its columns
 	 */
 	public void clearAnnotations(Object k){
-		Iterator <Map.Entry<String, Vertex>> vertices = vertices();
-		
-		while(vertices.hasNext()){
-			Map.Entry<String, Vertex> hashT = (Map.Entry<String, Vertex>) vertices.next();
-			
-			Vertex currVertex = hashT.getValue();
-			
-			if(currVertex.annotation.containsKey(k))
-				removeAnnotation(currVertex, k);
-		}
-		
-		for(int i = 0; i < arcList.size(); i++){
-			Arc currArc = arcList.get(i);
-			if(currArc.annotation.containsKey(k))
-				removeAnnotation(currArc, k);
-		}
+		vertexAttributes.removeColumn(k);
+		arcAttributes.removeColumn(k);
 	}
 }
@@ -0,0 +1,248 @@
+package project3;
+import java.util.Arrays;
+
+/*
+ * This class keeps the vertices and the in and out adjacent vertex IDs of a graph in copy-on-write chunks,
+ * so a read-only copy of the whole thing can be taken in constant time.
+ * The vertices are split by int ID into chunks of CHUNK_SIZE.  Each chunk remembers the version it was made in.
+ * freeze() hands out the current array of chunks and starts a new version, after which no chunk
+ * of the old version is changed again: the first write to a chunk in the new version copies the chunk
+ * (its arrays of list references and sizes, not the lists themselves) and the array of chunks.
+ *
+ * An adjacency list is shared with every frozen copy of its chunk.  Adding to the end of a shared list
+ * is still safe, since a frozen copy only reads up to the size it was frozen with.  Removing from the
+ * middle of a list is not, so a list is copied the first time it has something removed in a new version.
+ *
+ * The lists are kept in the same order as the graph's lists of arcs, so the position of an arc
+ * in its source's out list or target's in list is its position here too.
+ *
+ * Nothing keeps track of the frozen copies.  An old chunk or list is freed by the garbage collector
+ * once no frozen copy that uses it can be reached.
+ *
+ * The methods can:
+ * set the vertex of an ID
+ * add an adjacent vertex ID to the end of a list, or swap-remove the one at a position
+ * make a list exactly big enough for a number of new entries before a bulk load
+ * read the lists of the current version
+ * freeze the current version into a GraphSnapshot
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class VersionedAdjacency {
+
+	//The number of vertices in a chunk
+	static final int CHUNK_BITS = 8;
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	//The vertices and lists of CHUNK_SIZE vertex IDs, and the version each list was last copied in
+	static final class Chunk {
+		final int version;
+		final Vertex[] vertices;
+		final int[][] out;
+		final int[] outSize;
+		final int[] outVersion;
+		final int[][] in;
+		final int[] inSize;
+		final int[] inVersion;
+
+		//An empty chunk
+		Chunk(int version){
+			this.version = version;
+			vertices = new Vertex[CHUNK_SIZE];
+			out = new int[CHUNK_SIZE][];
+			outSize = new int[CHUNK_SIZE];
+			outVersion = new int[CHUNK_SIZE];
+			in = new int[CHUNK_SIZE][];
+			inSize = new int[CHUNK_SIZE];
+			inVersion = new int[CHUNK_SIZE];
+		}
+
+		//A copy of an older chunk that shares its lists
+		Chunk(int version, Chunk old){
+			this.version = version;
+			vertices = old.vertices.clone();
+			out = old.out.clone();
+			outSize = old.outSize.clone();
+			outVersion = old.outVersion.clone();
+			in = old.in.clone();
+			inSize = old.inSize.clone();
+			inVersion = old.inVersion.clone();
+		}
+	}
+
+	//The chunks of the current version, and the version the array itself was made in
+	private Chunk[] chunks;
+	private int chunksVersion = 0;
+	private int version = 0;
+
+	public VersionedAdjacency(){
+		this(0);
+	}
+
+	//Makes the chunk array big enough for the given number of vertex IDs
+	public VersionedAdjacency(int vertexCapacity){
+		chunks = new Chunk[Math.max(4, (vertexCapacity + CHUNK_MASK) >>> CHUNK_BITS)];
+	}
+
+	/*
+	 * Returns the chunk of the vertex with ID v, copying it and the chunk array first if a frozen copy has them
+	 */
+	private Chunk writable(int v){
+		int c = v >>> CHUNK_BITS;
+
+		if(chunksVersion != version){
+			chunks = chunks.clone();
+			chunksVersion = version;
+		}
+
+		if(c >= chunks.length)
+			chunks = Arrays.copyOf(chunks, Math.max(c + 1, chunks.length * 2));
+
+		Chunk chunk = chunks[c];
+
+		if(chunk != null && chunk.version == version)
+			return chunk;
+
+		chunk = chunk == null ? new Chunk(version) : new Chunk(version, chunk);
+		chunks[c] = chunk;
+
+		return chunk;
+	}
+
+	/*
+	 * Sets the vertex with ID v, or null when it is removed
+	 */
+	void setVertex(int v, Vertex vertex){
+		writable(v).vertices[v & CHUNK_MASK] = vertex;
+	}
+
+	/*
+	 * Adds w to the end of the out list of v
+	 */
+	void addOut(int v, int w){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+
+		if(chunk.out[i] == null || chunk.outSize[i] == chunk.out[i].length){
+			chunk.out[i] = grow(chunk.out[i], chunk.outSize[i]);
+			chunk.outVersion[i] = version;
+		}
+
+		chunk.out[i][chunk.outSize[i]++] = w;
+	}
+
+	/*
+	 * Adds w to the end of the in list of v
+	 */
+	void addIn(int v, int w){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+
+		if(chunk.in[i] == null || chunk.inSize[i] == chunk.in[i].length){
+			chunk.in[i] = grow(chunk.in[i], chunk.inSize[i]);
+			chunk.inVersion[i] = version;
+		}
+
+		chunk.in[i][chunk.inSize[i]++] = w;
+	}
+
+	/*
+	 * Makes the out list of v exactly big enough for extra more entries, if it isn't already
+	 */
+	void reserveOut(int v, int extra){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+		int size = chunk.outSize[i];
+
+		if(chunk.out[i] == null || chunk.out[i].length < size + extra){
+			chunk.out[i] = chunk.out[i] == null ? new int[extra] : Arrays.copyOf(chunk.out[i], size + extra);
+			chunk.outVersion[i] = version;
+		}
+	}
+
+	/*
+	 * Makes the in list of v exactly big enough for extra more entries, if it isn't already
+	 */
+	void reserveIn(int v, int extra){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+		int size = chunk.inSize[i];
+
+		if(chunk.in[i] == null || chunk.in[i].length < size + extra){
+			chunk.in[i] = chunk.in[i] == null ? new int[extra] : Arrays.copyOf(chunk.in[i], size + extra);
+			chunk.inVersion[i] = version;
+		}
+	}
+
+	/*
+	 * Removes position pos of the out list of v by moving the last entry into its place
+	 */
+	void removeOut(int v, int pos){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+
+		//A list from an older version may be read by a frozen copy, so it is copied before it is changed
+		if(chunk.outVersion[i] != version){
+			chunk.out[i] = chunk.out[i].clone();
+			chunk.outVersion[i] = version;
+		}
+
+		int last = --chunk.outSize[i];
+		chunk.out[i][pos] = chunk.out[i][last];
+	}
+
+	/*
+	 * Removes position pos of the in list of v by moving the last entry into its place
+	 */
+	void removeIn(int v, int pos){
+		Chunk chunk = writable(v);
+		int i = v & CHUNK_MASK;
+
+		if(chunk.inVersion[i] != version){
+			chunk.in[i] = chunk.in[i].clone();
+			chunk.inVersion[i] = version;
+		}
+
+		int last = --chunk.inSize[i];
+		chunk.in[i][pos] = chunk.in[i][last];
+	}
+
+	/*
+	 * Returns the out list of v in the current version, which holds outSize entries and may have room past them.
+	 * The caller only reads it
+	 */
+	int[] outList(int v){
+		return chunks[v >>> CHUNK_BITS].out[v & CHUNK_MASK];
+	}
+
+	/*
+	 * Returns the in list of v in the current version
+	 */
+	int[] inList(int v){
+		return chunks[v >>> CHUNK_BITS].in[v & CHUNK_MASK];
+	}
+
+	/*
+	 * Returns a copy of a list with twice the room
+	 */
+	private static int[] grow(int[] list, int size){
+		int[] bigger = new int[Math.max(4, size * 2)];
+
+		if(list != null)
+			System.arraycopy(list, 0, bigger, 0, size);
+
+		return bigger;
+	}
+
+	/*
+	 * Hands out the current version as a snapshot and starts a new one.  Nothing is copied here
+	 */
+	GraphSnapshot freeze(int vertexBound, int numVertices, int numArcs){
+		GraphSnapshot snapshot = new GraphSnapshot(version, chunks, vertexBound, numVertices, numArcs);
+		version++;
+
+		return snapshot;
+	}
+}
@@ -1,10 +1,11 @@
 package project3;
-import java.util.HashMap;
 /*
  * This class represents a vertex object
+ * Its annotations are kept by its graph in an AttributeStore under the vertex's int ID
  * 
  * The methods can:
  * set and get both data and key/ID
+ * get the int ID given by its graph
  * 
  * Author:  Benjamin Chi
  * Class:  ICS 311/Algorithms
@@ -13,7 +14,7 @@ public class Vertex{
 		
 		private String key = null;
 		private String data = null;
-		public HashMap <Object, Object> annotation = new HashMap <Object, Object>();
+		private int id = -1;
 		
 		//Empty constructor
 		public Vertex (){
@@ -45,4 +46,14 @@ public class Vertex{
 			return data;
 		}
 		
+		//Get the int ID the graph gave this vertex, or -1 if it isn't in a graph
+		public int getId(){
+			return id;
+		}
+		
+		//Set the int ID when the vertex is put in a graph
+		void setId(int newid){
+			id = newid;
+		}
+		
 	}
\ No newline at end of file
@@ -0,0 +1,738 @@
+package project3;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * This class reads a VNA file by memory mapping it and scanning the bytes directly.
+ * The first two lines (the "*Node properties" header and its column names) are skipped.
+ * Every line after that is a vertex with its key and data, until a line with a "*" in it
+ * (the "*Tie data" header).  The line after the header is skipped, and every line after
+ * that is an arc with a source key, a target key, and an optional weight.
+ * These are the same rules GraphDriver uses with a Scanner and String.split.
+ *
+ * A String is only made for each vertex key and data.  The tie keys are looked up byte by byte
+ * in an open addressing table of the vertex keys, and the weights are parsed from the bytes,
+ * so the ties are stored as int arrays of vertex numbers and weights without making any Strings.
+ * When the graph is to have float or double weights, the weights are kept as doubles so their fractions aren't lost.
+ * The tie section is cut into chunks at line breaks and the chunks can be parsed on several threads.
+ *
+ * The methods can:
+ * read a VNA file
+ * provide the vertex keys and data, and the source, target, and weight of each tie
+ * build a DirectedGraph or UndirectedGraph out of what was read
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class VnaReader {
+
+	//The tie section is not cut into chunks smaller than this many bytes
+	private static final int MIN_CHUNK = 1 << 16;
+
+	//The powers of ten a weight's digits are divided by to put in its fraction
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+	private final MappedByteBuffer buffer;
+	private final int length;
+
+	//The vertices in the order they were read, and where each key is in the file
+	private int numVertices = 0;
+	private String[] keys = new String[1024];
+	private String[] data = new String[1024];
+	private int[] keyStart = new int[1024];
+	private int[] keyLength = new int[1024];
+	private int[] keyHash = new int[1024];
+
+	//The open addressing table of vertex numbers plus one (0 is an empty slot)
+	private int[] table = new int[2048];
+
+	//The ties as vertex numbers and weights.  The weights are in realWeights instead of weights
+	//when the weight type isn't ArcWeights.INT
+	private int numTies = 0;
+	private int[] sources = new int[0];
+	private int[] targets = new int[0];
+	private int[] weights = new int[0];
+	private double[] realWeights = null;
+	private final int weightType;
+
+	private VnaReader(MappedByteBuffer buffer, int length, int weightType){
+		this.buffer = buffer;
+		this.length = length;
+		this.weightType = weightType;
+	}
+
+	/*
+	 * Memory maps and reads a VNA file on one thread
+	 */
+	public static VnaReader read(String filename) throws IOException {
+		return read(filename, 1);
+	}
+
+	/*
+	 * Memory maps and reads a VNA file with int weights, parsing the ties on the given number of threads
+	 */
+	public static VnaReader read(String filename, int threads) throws IOException {
+		return read(filename, threads, ArcWeights.INT);
+	}
+
+	/*
+	 * Memory maps and reads a VNA file for a graph with weights of type ArcWeights.INT, FLOAT, or DOUBLE,
+	 * parsing the ties on the given number of threads
+	 */
+	public static VnaReader read(String filename, int threads, int weightType) throws IOException {
+		if(weightType != ArcWeights.INT && weightType != ArcWeights.FLOAT && weightType != ArcWeights.DOUBLE)
+			throw new IllegalArgumentException("Unknown weight type: " + weightType);
+
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+
+		try{
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+
+			if(size > Integer.MAX_VALUE)
+				throw new IOException(filename + " is too big to map (" + size + " bytes)");
+
+			VnaReader reader = new VnaReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), (int) size, weightType);
+			reader.parse(threads);
+
+			return reader;
+		}
+
+		finally{
+			file.close();
+		}
+	}
+
+	/*
+	 * Returns the number of vertices read
+	 */
+	public int numVertices(){
+		return numVertices;
+	}
+
+	/*
+	 * Returns the key of the ith vertex read
+	 */
+	public String getKey(int i){
+		return keys[i];
+	}
+
+	/*
+	 * Returns the data of the ith vertex read, or null if it had none
+	 */
+	public String getData(int i){
+		return data[i];
+	}
+
+	/*
+	 * Returns the number of ties read
+	 */
+	public int numTies(){
+		return numTies;
+	}
+
+	/*
+	 * Returns the vertex number of the source of the ith tie
+	 */
+	public int getSource(int i){
+		return sources[i];
+	}
+
+	/*
+	 * Returns the vertex number of the target of the ith tie
+	 */
+	public int getTarget(int i){
+		return targets[i];
+	}
+
+	/*
+	 * Returns the type of the weights read, ArcWeights.INT, FLOAT, or DOUBLE
+	 */
+	public int getWeightType(){
+		return weightType;
+	}
+
+	/*
+	 * Returns the weight of the ith tie as an int, or 0 if it had none.  A fraction is truncated
+	 */
+	public int getWeight(int i){
+		if(realWeights != null)
+			return (int) realWeights[i];
+
+		return weights[i];
+	}
+
+	/*
+	 * Returns the weight of the ith tie as a double, or 0 if it had none
+	 */
+	public double getDoubleWeight(int i){
+		if(realWeights != null)
+			return realWeights[i];
+
+		return weights[i];
+	}
+
+	/*
+	 * Builds a DirectedGraph with a vertex for every vertex read and an arc for every tie
+	 */
+	public DirectedGraph toDirectedGraph(){
+		return builder().buildDirected();
+	}
+
+	/*
+	 * Builds an UndirectedGraph with a vertex for every vertex read and an arc for every tie
+	 */
+	public UndirectedGraph toUndirectedGraph(){
+		return builder().buildUndirected();
+	}
+
+	/*
+	 * Returns a GraphBuilder that loads what was read in one pass, sharing the arrays instead of copying them
+	 */
+	public GraphBuilder builder(){
+		return new GraphBuilder(keys, data, numVertices, sources, targets, weights, realWeights, weightType, numTies);
+	}
+
+	/*
+	 * Reads the vertices one line at a time, then splits the ties into chunks for the threads
+	 */
+	private void parse(int threads) throws IOException {
+		int pos = 0;
+
+		//Skip the node header and its column names
+		pos = nextLine(nextLine(pos));
+
+		while(pos < length){
+			int end = lineEnd(pos);
+			int next = Math.min(end + 1, length);
+
+			//A line with a "*" starts the tie data, and the line after it is the column names
+			if(hasStar(pos, end)){
+				parseTies(nextLine(next), threads);
+				return;
+			}
+
+			end = trimReturn(pos, end);
+
+			if(end > pos)
+				parseVertex(pos, end);
+
+			pos = next;
+		}
+	}
+
+	/*
+	 * Parses the ties from start to the end of the file.  The ties don't depend on each other,
+	 * so the section is cut into chunks at line breaks and each chunk is parsed into its
+	 * own arrays on a fork/join pool.  The chunks are then copied together in file order
+	 */
+	private void parseTies(int start, int threads) throws IOException {
+		int chunks = 1;
+
+		if(threads > 1 && length - start >= MIN_CHUNK * 2)
+			chunks = Math.min(threads * 4, (length - start) / MIN_CHUNK);
+
+		//Cut the section into chunks that start at the beginning of a line
+		TieChunk[] parts = new TieChunk[chunks];
+		int chunkStart = start;
+
+		for(int i = 0; i < chunks; i++){
+			int chunkEnd = length;
+
+			if(i < chunks - 1)
+				chunkEnd = chunkBoundary(Math.max(chunkStart, start + (int) ((long) (length - start) * (i + 1) / chunks)));
+
+			parts[i] = new TieChunk(chunkStart, chunkEnd);
+			chunkStart = chunkEnd;
+		}
+
+		if(chunks == 1)
+			parts[0].compute();
+
+		else{
+			ForkJoinPool pool = new ForkJoinPool(threads);
+
+			try{
+				pool.invoke(new RecursiveAction(){
+					protected void compute(){
+						invokeAll(parts);
+					}
+				});
+			}
+
+			finally{
+				pool.shutdown();
+			}
+		}
+
+		//Merge the chunks in order
+		for(int i = 0; i < chunks; i++){
+			if(parts[i].error != null)
+				throw parts[i].error;
+
+			numTies += parts[i].count;
+		}
+
+		sources = new int[numTies];
+		targets = new int[numTies];
+
+		if(weightType == ArcWeights.INT)
+			weights = new int[numTies];
+
+		else{
+			weights = null;
+			realWeights = new double[numTies];
+		}
+
+		int pos = 0;
+
+		for(int i = 0; i < chunks; i++){
+			System.arraycopy(parts[i].sources, 0, sources, pos, parts[i].count);
+			System.arraycopy(parts[i].targets, 0, targets, pos, parts[i].count);
+
+			if(weights != null)
+				System.arraycopy(parts[i].weights, 0, weights, pos, parts[i].count);
+
+			else
+				System.arraycopy(parts[i].realWeights, 0, realWeights, pos, parts[i].count);
+
+			pos += parts[i].count;
+		}
+	}
+
+	/*
+	 * Returns the start of the first line at or after pos.  A "*" header line and the
+	 * column names after it are kept together in one chunk
+	 */
+	private int chunkBoundary(int pos){
+		if(pos > 0 && buffer.get(pos - 1) != '\n')
+			pos = nextLine(pos);
+
+		//Move past a header so its column names aren't read as a tie by the next chunk
+		int previous = pos - 1;
+
+		while(previous > 0 && buffer.get(previous - 1) != '\n')
+			previous--;
+
+		if(previous >= 0 && pos < length && hasStar(previous, pos))
+			pos = nextLine(pos);
+
+		return pos;
+	}
+
+	/*
+	 * Reads the key and data out of a vertex line
+	 */
+	private void parseVertex(int start, int end){
+		int keyEnd = tokenEnd(start, end);
+		int dataStart = skipSpaces(keyEnd, end);
+		String vertexData = null;
+
+		if(dataStart < end)
+			vertexData = string(dataStart, tokenEnd(dataStart, end));
+
+		//A key that was already read keeps its number and gets the new data
+		int hash = hash(start, keyEnd);
+		int id = find(start, keyEnd, hash);
+
+		if(id == -1)
+			id = addVertex(start, keyEnd, hash);
+
+		data[id] = vertexData;
+	}
+
+	/*
+	 * The ties parsed from one chunk of the tie section
+	 */
+	private class TieChunk extends RecursiveAction {
+		private final int start;
+		private final int end;
+
+		//The ties as vertex numbers and weights, or the error that stopped the chunk
+		int count = 0;
+		int[] sources;
+		int[] targets;
+		int[] weights;
+		double[] realWeights;
+		IOException error = null;
+
+		TieChunk(int start, int end){
+			this.start = start;
+			this.end = end;
+
+			//Guess at the number of ties from the size of the chunk
+			int guess = Math.max(16, (end - start) / 12);
+			sources = new int[guess];
+			targets = new int[guess];
+
+			if(weightType == ArcWeights.INT)
+				weights = new int[guess];
+
+			else
+				realWeights = new double[guess];
+		}
+
+		protected void compute(){
+			int pos = start;
+
+			try{
+				while(pos < end){
+					int lineEnd = lineEnd(pos);
+					int next = Math.min(lineEnd + 1, length);
+
+					//Another header skips itself and its column names
+					if(hasStar(pos, lineEnd)){
+						pos = nextLine(next);
+						continue;
+					}
+
+					lineEnd = trimReturn(pos, lineEnd);
+
+					if(lineEnd > pos)
+						parseTie(pos, lineEnd);
+
+					pos = next;
+				}
+			}
+
+			catch(IOException e){
+				error = e;
+			}
+		}
+
+		/*
+		 * Reads the source, target, and weight out of a tie line
+		 */
+		private void parseTie(int start, int end) throws IOException {
+			int sourceEnd = tokenEnd(start, end);
+			int targetStart = skipSpaces(sourceEnd, end);
+			int targetEnd = tokenEnd(targetStart, end);
+			int weightStart = skipSpaces(targetEnd, end);
+
+			int source = find(start, sourceEnd, hash(start, sourceEnd));
+			int target = find(targetStart, targetEnd, hash(targetStart, targetEnd));
+
+			if(source == -1 || target == -1)
+				throw new IOException("Line " + lineAt(start) + ": tie to a vertex that is not in the node data");
+
+			if(count == sources.length){
+				sources = Arrays.copyOf(sources, count * 2);
+				targets = Arrays.copyOf(targets, count * 2);
+
+				if(weights != null)
+					weights = Arrays.copyOf(weights, count * 2);
+
+				else
+					realWeights = Arrays.copyOf(realWeights, count * 2);
+			}
+
+			//If no weight data is given set arc weight to 0
+			if(weights != null)
+				weights[count] = weightStart < end ? parseWeight(weightStart, tokenEnd(weightStart, end)) : 0;
+
+			else
+				realWeights[count] = weightStart < end ? parseRealWeight(weightStart, tokenEnd(weightStart, end)) : 0;
+
+			sources[count] = source;
+			targets[count] = target;
+			count++;
+		}
+	}
+
+	/*
+	 * Parses a weight the same way as the driver: a number with a "." is truncated to an int.
+	 * Plain digits with an optional sign and fraction are read straight from the bytes
+	 */
+	private int parseWeight(int start, int end) throws IOException {
+		int pos = start;
+		boolean negative = false;
+
+		if(buffer.get(pos) == '-' || buffer.get(pos) == '+'){
+			negative = buffer.get(pos) == '-';
+			pos++;
+		}
+
+		long value = 0;
+		int digits = 0;
+
+		while(pos < end && isDigit(buffer.get(pos)) && digits < 18){
+			value = value * 10 + (buffer.get(pos) - '0');
+			digits++;
+			pos++;
+		}
+
+		//The fraction is dropped, the same as casting the double to an int
+		if(pos < end && buffer.get(pos) == '.'){
+			pos++;
+
+			while(pos < end && isDigit(buffer.get(pos)))
+				pos++;
+		}
+
+		//Anything else (exponents, very long numbers) goes through the usual parsers
+		if(pos < end || digits == 0 || value > Integer.MAX_VALUE){
+			String text = string(start, end);
+
+			try{
+				if(text.contains("."))
+					return (int) Double.parseDouble(text);
+
+				return Integer.parseInt(text);
+			}
+
+			catch(NumberFormatException e){
+				throw new IOException("Line " + lineAt(start) + ": bad weight " + text);
+			}
+		}
+
+		return negative ? (int) -value : (int) value;
+	}
+
+	/*
+	 * Parses a weight for a graph with float or double weights, keeping its fraction.
+	 * Plain digits with an optional sign and fraction are read straight from the bytes
+	 */
+	private double parseRealWeight(int start, int end) throws IOException {
+		int pos = start;
+		boolean negative = false;
+
+		if(buffer.get(pos) == '-' || buffer.get(pos) == '+'){
+			negative = buffer.get(pos) == '-';
+			pos++;
+		}
+
+		long value = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+
+		while(pos < end && isDigit(buffer.get(pos)) && digits < 15){
+			value = value * 10 + (buffer.get(pos) - '0');
+			digits++;
+			pos++;
+		}
+
+		if(pos < end && buffer.get(pos) == '.'){
+			pos++;
+
+			while(pos < end && isDigit(buffer.get(pos)) && digits < 15){
+				value = value * 10 + (buffer.get(pos) - '0');
+				digits++;
+				fractionDigits++;
+				pos++;
+			}
+		}
+
+		//Anything else (exponents, more digits than a double holds exactly) goes through Double.parseDouble
+		if(pos < end || digits == 0){
+			String text = string(start, end);
+
+			try{
+				return Double.parseDouble(text);
+			}
+
+			catch(NumberFormatException e){
+				throw new IOException("Line " + lineAt(start) + ": bad weight " + text);
+			}
+		}
+
+		//Both numbers are exact doubles, so the one division rounds the same as Double.parseDouble
+		double weight = fractionDigits == 0 ? value : value / POWERS_OF_TEN[fractionDigits];
+
+		return negative ? -weight : weight;
+	}
+
+	/*
+	 * Adds a vertex whose key is the bytes from start to end and returns its number
+	 */
+	private int addVertex(int start, int end, int hash){
+		if(numVertices == keys.length){
+			int size = numVertices * 2;
+			keys = Arrays.copyOf(keys, size);
+			data = Arrays.copyOf(data, size);
+			keyStart = Arrays.copyOf(keyStart, size);
+			keyLength = Arrays.copyOf(keyLength, size);
+			keyHash = Arrays.copyOf(keyHash, size);
+		}
+
+		int id = numVertices++;
+		keys[id] = string(start, end);
+		keyStart[id] = start;
+		keyLength[id] = end - start;
+		keyHash[id] = hash;
+
+		//Keep the table at most half full
+		if(numVertices * 2 > table.length)
+			rehash(table.length * 2);
+
+		insert(id);
+		return id;
+	}
+
+	/*
+	 * Returns the number of the vertex whose key is the bytes from start to end, or -1
+	 */
+	private int find(int start, int end, int hash){
+		int mask = table.length - 1;
+		int slot = hash & mask;
+
+		while(table[slot] != 0){
+			int id = table[slot] - 1;
+
+			if(keyHash[id] == hash && sameBytes(keyStart[id], keyLength[id], start, end))
+				return id;
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Puts a vertex number in the first empty slot for its hash
+	 */
+	private void insert(int id){
+		int mask = table.length - 1;
+		int slot = keyHash[id] & mask;
+
+		while(table[slot] != 0)
+			slot = (slot + 1) & mask;
+
+		table[slot] = id + 1;
+	}
+
+	/*
+	 * Moves every vertex into a bigger table
+	 */
+	private void rehash(int size){
+		table = new int[size];
+
+		for(int id = 0; id < numVertices - 1; id++)
+			insert(id);
+	}
+
+	/*
+	 * Returns true if the key at keyStart has the same bytes as start to end
+	 */
+	private boolean sameBytes(int keyStart, int keyLength, int start, int end){
+		if(keyLength != end - start)
+			return false;
+
+		for(int i = 0; i < keyLength; i++){
+			if(buffer.get(keyStart + i) != buffer.get(start + i))
+				return false;
+		}
+
+		return true;
+	}
+
+	/*
+	 * A hash of the bytes from start to end
+	 */
+	private int hash(int start, int end){
+		int h = 0;
+
+		for(int i = start; i < end; i++)
+			h = 31 * h + buffer.get(i);
+
+		return h ^ (h >>> 16);
+	}
+
+	/*
+	 * Makes a String out of the bytes from start to end
+	 */
+	private String string(int start, int end){
+		byte[] bytes = new byte[end - start];
+
+		for(int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * Returns the position of the "\n" that ends the line starting at pos, or the end of the file
+	 */
+	private int lineEnd(int pos){
+		while(pos < length && buffer.get(pos) != '\n')
+			pos++;
+
+		return pos;
+	}
+
+	/*
+	 * Returns end moved back past a "\r" if the line ends with "\r\n"
+	 */
+	private int trimReturn(int start, int end){
+		if(end > start && buffer.get(end - 1) == '\r')
+			return end - 1;
+
+		return end;
+	}
+
+	/*
+	 * Returns true if there is a "*" between start and end
+	 */
+	private boolean hasStar(int start, int end){
+		for(int i = start; i < end; i++){
+			if(buffer.get(i) == '*')
+				return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * Returns the line number of a position in the file, for error messages
+	 */
+	private int lineAt(int pos){
+		int line = 1;
+
+		for(int i = 0; i < pos; i++){
+			if(buffer.get(i) == '\n')
+				line++;
+		}
+
+		return line;
+	}
+
+	/*
+	 * Returns the start of the line after the one starting at pos
+	 */
+	private int nextLine(int pos){
+		while(pos < length && buffer.get(pos) != '\n')
+			pos++;
+
+		return Math.min(pos + 1, length);
+	}
+
+	/*
+	 * Returns the end of the token starting at pos.  Tokens are split on spaces like split(" +")
+	 */
+	private int tokenEnd(int pos, int end){
+		while(pos < end && buffer.get(pos) != ' ')
+			pos++;
+
+		return pos;
+	}
+
+	/*
+	 * Returns the first position at or after pos that is not a space
+	 */
+	private int skipSpaces(int pos, int end){
+		while(pos < end && buffer.get(pos) == ' ')
+			pos++;
+
+		return pos;
+	}
+
+	//Returns true if b is an ASCII digit
+	private static boolean isDigit(byte b){
+		return b >= '0' && b <= '9';
+	}
+}
@@ -0,0 +1,202 @@
+package project3;
+import java.util.Random;
+
+/*
+ * This class estimates the clustering coefficient of the CSR view of an Undirected Graph
+ * by checking a random sample of paths of length 2 (wedges) instead of counting all of them.
+ * A center vertex is picked with a chance in proportion to the number of wedges through it,
+ * which is deg * (deg - 1) when the vertex has no loops, and then two different adjacent vertices
+ * are picked from its list.  That makes every wedge in the graph equally likely, so the fraction
+ * of sampled wedges that are closed estimates the global coefficient.
+ *
+ * The estimate comes with a 95% confidence interval from the normal approximation.
+ * The number of wedges can be given directly, or worked out from the largest half width
+ * the interval should have, assuming the worst case coefficient of 0.5.
+ *
+ * The methods can:
+ * sample a given number of wedges, or enough wedges for a target error
+ * provide the estimate, the half width of its confidence interval, and the interval's bounds
+ * provide the number of wedges sampled and how many of them were closed
+ *
+ * Author:  Benjamin Chi
+ * Class:  ICS 311/Algorithms
+ */
+public class WedgeSampler {
+
+	//The z value of a 95% confidence interval
+	private static final double Z = 1.96;
+
+	private final CsrGraph csr;
+	private Random random = new Random();
+
+	//The running total of the wedges through each vertex before it
+	private final long[] wedges;
+
+	//The results of the last sample
+	private long samples = 0;
+	private long closed = 0;
+
+	public WedgeSampler(CsrGraph csr){
+		this.csr = csr;
+
+		int n = csr.numVertices();
+		wedges = new long[n + 1];
+
+		for(int v = 0; v < n; v++)
+			wedges[v + 1] = wedges[v] + countWedges(v);
+	}
+
+	/*
+	 * Sets the seed of the random numbers so a sample can be repeated
+	 */
+	public void setSeed(long seed){
+		random = new Random(seed);
+	}
+
+	/*
+	 * Returns the number of wedges needed for the confidence interval to be at most error on either side
+	 */
+	public static long samplesFor(double error){
+		return (long) Math.ceil(Z * Z * 0.25 / (error * error));
+	}
+
+	/*
+	 * Samples enough wedges for the confidence interval to be at most error on either side
+	 */
+	public void sampleToError(double error){
+		sample(samplesFor(error));
+	}
+
+	/*
+	 * Samples a number of wedges and counts how many of them are closed
+	 */
+	public void sample(long count){
+		samples = 0;
+		closed = 0;
+
+		//A graph without wedges has nothing to sample
+		if(wedges[csr.numVertices()] == 0)
+			return;
+
+		for(long k = 0; k < count; k++){
+			int center = pickCenter();
+			int start = csr.outOffsets[center];
+			int deg = csr.outOffsets[center + 1] - start;
+			int first;
+			int second;
+
+			//Pick two places in the list that hold different vertices
+			do{
+				int i = random.nextInt(deg);
+				int j = random.nextInt(deg - 1);
+
+				if(j >= i)
+					j++;
+
+				first = csr.outTargets[start + i];
+				second = csr.outTargets[start + j];
+			} while(first == second);
+
+			//A wedge that goes through a loop on the center is closed by the loop
+			if(first == center || second == center || csr.hasArc(first, second))
+				closed++;
+
+			samples++;
+		}
+	}
+
+	/*
+	 * Counts the ordered pairs of places in a vertex's list that hold different vertices
+	 */
+	private long countWedges(int v){
+		int start = csr.outOffsets[v];
+		int end = csr.outOffsets[v + 1];
+		long deg = end - start;
+		long repeats = 0;
+
+		//The range is sorted, so each adjacent vertex is one run of equal IDs
+		for(int i = start; i < end; ){
+			int runEnd = i + 1;
+
+			while(runEnd < end && csr.outTargets[runEnd] == csr.outTargets[i])
+				runEnd++;
+
+			repeats += (long) (runEnd - i) * (runEnd - i);
+			i = runEnd;
+		}
+
+		return deg * deg - repeats;
+	}
+
+	/*
+	 * Picks a center vertex with a chance in proportion to the number of wedges through it
+	 */
+	private int pickCenter(){
+		long target = (long) (random.nextDouble() * wedges[wedges.length - 1]);
+
+		//Find the vertex whose range of the running total holds target
+		int low = 0;
+		int high = wedges.length - 2;
+
+		while(low < high){
+			int mid = (low + high + 1) >>> 1;
+
+			if(wedges[mid] <= target)
+				low = mid;
+
+			else
+				high = mid - 1;
+		}
+
+		return low;
+	}
+
+	/*
+	 * Returns the number of wedges sampled by the last sample
+	 */
+	public long getSamples(){
+		return samples;
+	}
+
+	/*
+	 * Returns the number of sampled wedges that were closed
+	 */
+	public long getClosed(){
+		return closed;
+	}
+
+	/*
+	 * Returns the fraction of sampled wedges that were closed
+	 */
+	public double getEstimate(){
+		if(samples == 0)
+			return 0;
+
+		return (double) closed / (double) samples;
+	}
+
+	/*
+	 * Returns how far the true coefficient may be on either side of the estimate, with 95% confidence
+	 */
+	public double getHalfWidth(){
+		if(samples == 0)
+			return 0;
+
+		double p = getEstimate();
+		return Z * Math.sqrt(p * (1 - p) / samples);
+	}
+
+	/*
+	 * Returns the low end of the confidence interval
+	 */
+	public double getLowerBound(){
+		return Math.max(0, getEstimate() - getHalfWidth());
+	}
+
+	/*
+	 * Returns the high end of the confidence interval
+	 */
+	public double getUpperBound(){
+		return Math.min(1, getEstimate() + getHalfWidth());
+	}
+}